@@ -40,6 +40,7 @@ public class Definitions {
    public static final String JOURNAL_HEU = "JOURNAL_HEU";
    public static final String JOURNAL_HEU_SFC_LENGTH = "JOURNAL_HEU_SFC_LENGTH";
    public static final String JOURNAL_HEU_SERVER_CAP = "JOURNAL_HEU_SERVER_CAP";
+   public static final String JOURNAL_DELAY_FORMULATION = "JOURNAL_DELAY_FORMULATION";
 
    public static final String OBSV_1 = "obsv1";
    public static final String OBSV_2 = "obsv2";
@@ -162,6 +163,34 @@ public class Definitions {
    public static final String LINK_CAPACITY_TYPES = "link_capacity_types";
    public static final String SERVER_CAPACITY_TYPES = "server_capacity_types";
    public static final String COMPUTE_ISS = "compute_iss";
+   public static final String PRUNED_VARIABLES = "pruned_variables";
+   public static final String CONSTR_FLUSH_SIZE = "constr_flush_size";
+   public static final String PARALLEL_BUILD = "parallel_build";
+   public static final String BUILD_THREADS = "build_threads";
+   public static final String COMPACT_NAMES = "compact_names";
+   public static final String EXPORT_LP = "export_lp";
+   public static final String MODEL_CACHE = "model_cache";
+   public static final String RETAIN_MODEL = "retain_model";
+   public static final String HIERARCHICAL_OBJECTIVES = "hierarchical_objectives";
+   public static final String HIERARCHICAL_REL_TOL = "hierarchical_rel_tol";
+   public static final String COLUMN_GENERATION = "column_generation";
+   public static final String CG_INITIAL_PATHS = "cg_initial_paths";
+   public static final String CG_MAX_ITERATIONS = "cg_max_iterations";
+   public static final String LAGRANGIAN = "lagrangian";
+   public static final String LAGRANGIAN_ITERATIONS = "lagrangian_iterations";
+   public static final String STREAM_INCUMBENTS = "stream_incumbents";
+   public static final String EXPORT_INCUMBENTS = "export_incumbents";
+   public static final String RACE_HEURISTICS = "race_heuristics";
+   public static final String RACE_RF_RUNS = "race_rf_runs";
+   public static final String RACE_THREADS = "race_threads";
+   public static final String SYMMETRY_BREAKING = "symmetry_breaking";
+   public static final String DELAY_INDICATORS = "delay_indicators";
+   public static final String PWL_COSTS = "pwl_costs";
+   public static final String SOS_CAPACITY_TYPES = "sos_capacity_types";
+   public static final String CAPACITY_SWEEP = "capacity_sweep";
+   public static final String RETAINED_MODELS = "retained_models";
+   public static final String SOLVER_SESSIONS = "solver_sessions";
+   public static final String SOLVER_THREADS = "solver_threads";
 
    // GUI parameters
    public static final String NODE_COLOR = "Black";
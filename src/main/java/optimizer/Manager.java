@@ -123,7 +123,7 @@ public class Manager {
                   readParameters(sce.getInputFileName());
                   rm = new ResultsManager(pm.getGraphName());
                   outputFileName = pm.getGraphName() + sce.getName() + sce.getObjFunc();
-                  LauncherLP.run(pm, sce, rm, null, null, outputFileName, true);
+                  LauncherLP.release(LauncherLP.run(pm, sce, rm, null, null, outputFileName, true));
                   break;
 
                case FF:
@@ -161,6 +161,7 @@ public class Manager {
       } else {
          Journal.run(pm, sce);
       }
+      LauncherLP.shutdown();
    }
 
    public static void terminate() {
@@ -10,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import optimizer.utils.ConfigFiles;
 import optimizer.utils.GraphManager;
+import optimizer.utils.IncidenceIndex;
 
 import java.math.BigInteger;
 import java.util.*;
@@ -37,6 +38,7 @@ public class Parameters {
    private List<Server> servers;
    private List<Service> services;
    private List<Path> paths;
+   private IncidenceIndex incidenceIndex;
    private int pathsTrafficFlow;
    private int demandsTrafficFlow;
    private int serviceLength;
@@ -45,6 +47,7 @@ public class Parameters {
    private List<Long> seeds;
    private int seedCounter;
    private String graphName;
+   private List<String> inputFiles;
    private Random rnd;
 
    public Parameters() {
@@ -57,6 +60,7 @@ public class Parameters {
       functionTypes = new ArrayList<>();
       serviceChains = new ArrayList<>();
       global = new HashMap<String, Object>();
+      inputFiles = new ArrayList<>();
    }
 
    /**
@@ -92,6 +96,88 @@ public class Parameters {
       if (!global.containsKey(COMPUTE_ISS)){
          global.put(COMPUTE_ISS, true);
       }
+      // Placement variables are created for every server unless "pruned_variables" is set to true
+      if (!global.containsKey(PRUNED_VARIABLES))
+         global.put(PRUNED_VARIABLES, false);
+      // Constraints are added to the model in blocks of "constr_flush_size"
+      if (!global.containsKey(CONSTR_FLUSH_SIZE))
+         global.put(CONSTR_FLUSH_SIZE, 10000);
+      // Constraints of different services are built in parallel if "parallel_build" is set to true,
+      // using "build_threads" threads (0 means one per available processor)
+      if (!global.containsKey(PARALLEL_BUILD))
+         global.put(PARALLEL_BUILD, false);
+      if (!global.containsKey(BUILD_THREADS))
+         global.put(BUILD_THREADS, 0);
+      // Constraints get short default names, resolved only for the IIS or the .lp export, if "compact_names" is true
+      if (!global.containsKey(COMPACT_NAMES))
+         global.put(COMPACT_NAMES, false);
+      // The model is exported to an .lp file in the results folder if "export_lp" is set to true
+      if (!global.containsKey(EXPORT_LP))
+         global.put(EXPORT_LP, false);
+      // Built models are cached on disk and reused for the same inputs if "model_cache" is set to true
+      if (!global.containsKey(MODEL_CACHE))
+         global.put(MODEL_CACHE, false);
+      // The last model is kept and only its objective is replaced for the same inputs if "retain_model" is true
+      if (!global.containsKey(RETAIN_MODEL))
+         global.put(RETAIN_MODEL, false);
+      // MGR, REP and CLOUD are solved as prioritized objectives instead of weighted ones if "hierarchical_objectives"
+      // is true, allowing each objective to degrade the previous ones by "hierarchical_rel_tol"
+      if (!global.containsKey(HIERARCHICAL_OBJECTIVES))
+         global.put(HIERARCHICAL_OBJECTIVES, false);
+      if (!global.containsKey(HIERARCHICAL_REL_TOL))
+         global.put(HIERARCHICAL_REL_TOL, 0.0);
+      // Paths are generated from the first "cg_initial_paths" of every service, pricing new ones on the LP relaxation
+      // for up to "cg_max_iterations", if "column_generation" is true
+      if (!global.containsKey(COLUMN_GENERATION))
+         global.put(COLUMN_GENERATION, false);
+      if (!global.containsKey(CG_INITIAL_PATHS))
+         global.put(CG_INITIAL_PATHS, 1);
+      if (!global.containsKey(CG_MAX_ITERATIONS))
+         global.put(CG_MAX_ITERATIONS, 10);
+      // A lagrangian bound and a repaired solution, used as start, are computed for up to "lagrangian_iterations"
+      // before solving the model if "lagrangian" is true
+      if (!global.containsKey(LAGRANGIAN))
+         global.put(LAGRANGIAN, false);
+      if (!global.containsKey(LAGRANGIAN_ITERATIONS))
+         global.put(LAGRANGIAN_ITERATIONS, 200);
+      // Every new incumbent is published to the GUI while solving if "stream_incumbents" is true, and also exported
+      // to the results folder if "export_incumbents" is true
+      if (!global.containsKey(STREAM_INCUMBENTS))
+         global.put(STREAM_INCUMBENTS, false);
+      if (!global.containsKey(EXPORT_INCUMBENTS))
+         global.put(EXPORT_INCUMBENTS, false);
+      // GRD and "race_rf_runs" RF heuristics run in "race_threads" threads while solving, and their solutions are
+      // passed to the solver, if "race_heuristics" is true
+      if (!global.containsKey(RACE_HEURISTICS))
+         global.put(RACE_HEURISTICS, false);
+      if (!global.containsKey(RACE_RF_RUNS))
+         global.put(RACE_RF_RUNS, 3);
+      if (!global.containsKey(RACE_THREADS))
+         global.put(RACE_THREADS, 2);
+      // Identical servers of a node are used and loaded in index order if "symmetry_breaking" is true
+      if (!global.containsKey(SYMMETRY_BREAKING))
+         global.put(SYMMETRY_BREAKING, false);
+      // Max. service delay and delay linearization are indicator constraints instead of big-M if "delay_indicators"
+      // is true
+      if (!global.containsKey(DELAY_INDICATORS))
+         global.put(DELAY_INDICATORS, false);
+      // Utilization costs are piecewise-linear objectives of the utilization, without kL and kX, if "pwl_costs" is true
+      if (!global.containsKey(PWL_COSTS))
+         global.put(PWL_COSTS, false);
+      // The capacity type of every link or server is a SOS1 set of continuous variables if "sos_capacity_types" is true
+      if (!global.containsKey(SOS_CAPACITY_TYPES))
+         global.put(SOS_CAPACITY_TYPES, false);
+      // Retained models ignore the server capacities, which are updated in place, if "capacity_sweep" is true
+      if (!global.containsKey(CAPACITY_SWEEP))
+         global.put(CAPACITY_SWEEP, false);
+      // Number of models kept by "retain_model", the least recently used is dropped first
+      if (!global.containsKey(RETAINED_MODELS))
+         global.put(RETAINED_MODELS, 1);
+      // Number of solves running at the same time, each one with its share of "solver_threads" cores (0 for all)
+      if (!global.containsKey(SOLVER_SESSIONS))
+         global.put(SOLVER_SESSIONS, 1);
+      if (!global.containsKey(SOLVER_THREADS))
+         global.put(SOLVER_THREADS, 0);
       graph = GraphManager.importTopology(topologyFile, directedEdges, allNodesToCloud);
       paths = GraphManager.importPaths(graph, pathsFile);
       try {
@@ -103,6 +189,9 @@ public class Parameters {
          generateTrafficFlows();
          createSetOfServices();
          calculateAuxiliaryValues();
+         incidenceIndex = new IncidenceIndex(this);
+         inputFiles.add(topologyFile);
+         inputFiles.add(pathsFile);
          return true;
       } catch (Exception e) {
          log.warn("error generating parameters: " + e.toString());
@@ -322,6 +411,14 @@ public class Parameters {
       return global.get(key);
    }
 
+   public List<String> getInputFiles() {
+      return inputFiles;
+   }
+
+   public void addInputFile(String file) {
+      inputFiles.add(file);
+   }
+
    public String getGraphName() {
       return graphName;
    }
@@ -362,6 +459,10 @@ public class Parameters {
       return paths;
    }
 
+   public IncidenceIndex getIncidenceIndex() {
+      return incidenceIndex;
+   }
+
    public List<Server> getServers() {
       return servers;
    }
@@ -374,6 +475,15 @@ public class Parameters {
       return edges;
    }
 
+   // to be called when the admissible paths of the traffic flows change
+   public void updatePaths() {
+      pathsTrafficFlow = 0;
+      for (TrafficFlow trafficFlow : trafficFlows)
+         if (trafficFlow.getPaths().size() > pathsTrafficFlow)
+            pathsTrafficFlow = trafficFlow.getPaths().size();
+      incidenceIndex = new IncidenceIndex(this);
+   }
+
    public int getPathsTrafficFlow() {
       return pathsTrafficFlow;
    }
@@ -12,6 +12,7 @@ import com.gurobi.gurobi.GRBModel;
 import optimizer.Parameters;
 import optimizer.elements.*;
 import optimizer.results.Auxiliary;
+import optimizer.results.InitialModelValues;
 
 public class VariablesAlg {
 
@@ -39,10 +40,12 @@ public class VariablesAlg {
 
    public VariablesAlg(Parameters pm, GRBModel initialPlacementModel) {
       this.pm = pm;
-      zSP = Auxiliary.zSPvarsFromInitialModel(pm, initialPlacementModel);
-      zSPD = Auxiliary.zSPDvarsFromInitialModel(pm, initialPlacementModel);
-      fXSV = Auxiliary.fXSVvarsFromInitialModel(pm, initialPlacementModel);
-      fXSVD = Auxiliary.fXSVDvarsFromInitialModel(pm, initialPlacementModel);
+      // the initial model is read once for all the variables
+      InitialModelValues initialModelValues = new InitialModelValues(initialPlacementModel);
+      zSP = initialModelValues.zSP(pm);
+      zSPD = initialModelValues.zSPD(pm);
+      fXSV = initialModelValues.fXSV(pm);
+      fXSVD = initialModelValues.fXSVD(pm);
    }
 
    public VariablesAlg(Parameters pm, VariablesAlg initialPlacementVars) {
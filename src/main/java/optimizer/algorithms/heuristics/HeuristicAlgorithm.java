@@ -8,6 +8,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.function.BooleanSupplier;
 
 import static optimizer.Definitions.*;
 import org.eclipse.collections.impl.list.Interval;
@@ -28,6 +29,8 @@ public class HeuristicAlgorithm {
     protected VariablesAlg vars;
     protected Map<String, Integer> placementIncumbent;
     protected Map<String, Integer> pathsIncumbent;
+    // checked before every service, the allocation stops when it is true
+    private BooleanSupplier cancelled = () -> false;
 
     public HeuristicAlgorithm(Parameters pm, VariablesAlg vars, NetworkManager networkManager) {
         rnd = new Random();
@@ -38,8 +41,14 @@ public class HeuristicAlgorithm {
         this.placementIncumbent = new HashMap<>();
     }
 
+    public void setCancelled(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+    }
+
     public void allocateServices(String algorithm) {
         for (int s = 0; s < pm.getServices().size(); s++) {
+            if (cancelled.getAsBoolean())
+                return;
             for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
                 if (pm.getServices().get(s).getTrafficFlow().getAux().get(d))
                     allocateDemand(algorithm, s, d);
@@ -68,6 +77,8 @@ public class HeuristicAlgorithm {
         orderByValue(orderedServicesByDemands, Comparator.naturalOrder());
         int i = 0;
         for (Map.Entry<Integer, Integer> entry : orderedServicesByDemands.entrySet()) {
+            if (cancelled.getAsBoolean())
+                return;
             int s = entry.getKey();
             for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
                 allocateDemandGreedy(algorithm, s, d);
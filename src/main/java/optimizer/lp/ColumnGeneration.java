@@ -0,0 +1,362 @@
+package optimizer.lp;
+
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBColumn;
+import com.gurobi.gurobi.GRBConstr;
+import com.gurobi.gurobi.GRBEnv;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBLinExpr;
+import com.gurobi.gurobi.GRBModel;
+import com.gurobi.gurobi.GRBVar;
+import optimizer.Parameters;
+import optimizer.elements.Function;
+import optimizer.elements.Service;
+import optimizer.elements.TrafficFlow;
+import optimizer.gui.Scenario;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+import static optimizer.Definitions.*;
+import static optimizer.results.Auxiliary.printLog;
+
+// Generates the paths of the services by pricing the duals of the link and server utilization on a restricted master,
+// the LP relaxation of the model on the paths generated so far
+public class ColumnGeneration {
+
+   private static final Logger log = LoggerFactory.getLogger(ColumnGeneration.class);
+   private static final double EPSILON = 1e-6;
+   private final Parameters pm;
+   private final Scenario sce;
+   private final boolean[][][] initialPlacement;
+   private final GRBEnv env;
+   // enumerated paths of every service, restored after the final model
+   private List<List<Path>> enumeratedPaths;
+   // variables of the master by name, and the active demands of every service
+   private Map<String, GRBVar> masterVars;
+   private int[][] demands;
+
+   public ColumnGeneration(Parameters pm, Scenario sce, boolean[][][] initialPlacement, GRBEnv env) {
+      this.pm = pm;
+      this.sce = sce;
+      this.initialPlacement = initialPlacement;
+      this.env = env;
+   }
+
+   public void run() throws GRBException {
+      enumeratedPaths = new ArrayList<>();
+      for (int s = 0; s < pm.getServices().size(); s++)
+         enumeratedPaths.add(new ArrayList<>(pm.getServices().get(s).getTrafficFlow().getPaths()));
+      restrictPaths((int) pm.getGlobal(CG_INITIAL_PATHS));
+      GRBModel master = buildMaster();
+      try {
+         int maxIterations = (int) pm.getGlobal(CG_MAX_ITERATIONS);
+         for (int it = 0; it < maxIterations; it++) {
+            master.optimize();
+            if (master.get(GRB.IntAttr.Status) != GRB.Status.OPTIMAL) {
+               printLog(log, WARNING, "relaxation not solved [" + master.get(GRB.IntAttr.Status) + "]");
+               break;
+            }
+            double[] linkPrices = linkPrices(master);
+            double[] serverPrices = serverPrices(master);
+            List<Integer> services = new ArrayList<>();
+            for (int s = 0; s < pm.getServices().size(); s++)
+               if (priceService(s, linkPrices, serverPrices))
+                  services.add(s);
+            printLog(log, INFO, "column generation [iteration " + it + "][" + services.size() + " paths added]");
+            if (services.isEmpty())
+               break;
+            pm.updatePaths();
+            for (int s : services)
+               addPath(master, s, pm.getServices().get(s).getTrafficFlow().getPaths().size() - 1);
+         }
+      } finally {
+         master.dispose();
+      }
+   }
+
+   public void restorePaths() {
+      if (enumeratedPaths == null)
+         return;
+      for (int s = 0; s < enumeratedPaths.size(); s++) {
+         List<Path> paths = pm.getServices().get(s).getTrafficFlow().getPaths();
+         paths.clear();
+         paths.addAll(enumeratedPaths.get(s));
+      }
+      pm.updatePaths();
+   }
+
+   // keeps the first paths of every service, in the order of the paths file
+   private void restrictPaths(int numPaths) {
+      int keep = Math.max(numPaths, 1);
+      for (int s = 0; s < pm.getServices().size(); s++) {
+         List<Path> paths = pm.getServices().get(s).getTrafficFlow().getPaths();
+         if (paths.size() > keep)
+            paths.subList(keep, paths.size()).clear();
+      }
+      pm.updatePaths();
+   }
+
+   // LP relaxation of the model on the restricted paths, built once. The placement variables of all servers are
+   // created, so that the paths added later only need their routing variables and rows
+   private GRBModel buildMaster() throws GRBException {
+      Object prunedVariables = pm.getGlobal().put(PRUNED_VARIABLES, false);
+      ModelLP modelLP;
+      try {
+         modelLP = new ModelLP(pm, null, env);
+         VariablesLP vars = new VariablesLP(pm, modelLP.getGrbModel(), sce, null);
+         modelLP.setVars(vars);
+         new Constraints(pm, modelLP, sce, initialPlacement);
+         modelLP.setObjectiveFunction(
+               LauncherLP.generateExprForObjectiveFunction(pm, modelLP, sce.getObjFunc(), initialPlacement),
+               sce.isMaximization());
+         demands = new int[pm.getServices().size()][];
+         for (int s = 0; s < demands.length; s++)
+            demands[s] = vars.getDemands(s);
+      } finally {
+         pm.getGlobal().put(PRUNED_VARIABLES, prunedVariables);
+      }
+      try {
+         modelLP.getSink().resolveNames();
+         modelLP.getGrbModel().update();
+         GRBModel master = modelLP.getGrbModel().relax();
+         master.update();
+         GRBVar[] vars = master.getVars();
+         String[] names = master.get(GRB.StringAttr.VarName, vars);
+         masterVars = new HashMap<>(2 * vars.length);
+         for (int i = 0; i < vars.length; i++)
+            masterVars.put(names[i], vars[i]);
+         return master;
+      } finally {
+         modelLP.getGrbModel().dispose();
+      }
+   }
+
+   // routing columns of a new path in the rows of the master, and the rows of the path that link them to the
+   // placement. Rows of other families, e.g. delay or sync traffic, only cover the initial paths
+   private void addPath(GRBModel master, int s, int p) throws GRBException {
+      Service service = pm.getServices().get(s);
+      Path path = service.getTrafficFlow().getPaths().get(p);
+      GRBColumn column = new GRBColumn();
+      for (int v = 0; v < service.getFunctions().size(); v++)
+         if ((boolean) service.getFunctions().get(v).getAttribute(FUNCTION_REPLICABLE))
+            addTerm(master, column, -1.0, Constraints.pf1Name.format(new int[] { s, v }));
+      GRBVar zSPVar = master.addVar(0.0, 1.0, 0.0, GRB.CONTINUOUS, column, zSP + "[" + s + "][" + p + "]");
+      GRBLinExpr demandsExpr = new GRBLinExpr();
+      int[] pathServers = pm.getIncidenceIndex().getServersAlongPath(s, p);
+      for (int d : demands[s]) {
+         double traffic = service.getTrafficFlow().getDemands().get(d);
+         column = new GRBColumn();
+         addTerm(master, column, 1.0, Constraints.rp1Name.format(new int[] { s, d }));
+         for (Edge link : pm.getLinks())
+            if (path.contains(link))
+               addTerm(master, column, traffic / (int) link.getAttribute(LINK_CAPACITY), uL + "[" + link.getId() + "]");
+         GRBVar zSPDVar = master.addVar(0.0, 1.0, 0.0, GRB.CONTINUOUS, column,
+               zSPD + "[" + s + "][" + p + "][" + d + "]");
+         demandsExpr.addTerm(1.0, zSPDVar);
+         if (isOn(RP2))
+            master.addConstr(zSPDVar, GRB.LESS_EQUAL, zSPVar, RP2);
+         if (isOn(PF2))
+            for (int v = 0; v < service.getFunctions().size(); v++) {
+               GRBLinExpr expr = new GRBLinExpr();
+               for (int x : pathServers)
+                  expr.addTerm(1.0, fXSVD(x, s, v, d));
+               master.addConstr(zSPDVar, GRB.LESS_EQUAL, expr, PF2);
+            }
+         if (isOn(FD3))
+            for (int v = 1; v < service.getFunctions().size(); v++)
+               for (int n = 0; n < path.getNodePath().size(); n++) {
+                  GRBLinExpr expr = new GRBLinExpr();
+                  for (int m = 0; m <= n; m++)
+                     for (int x : pm.getIncidenceIndex().getServersOnPath(s, p, m))
+                        expr.addTerm(1.0, fXSVD(x, s, v - 1, d));
+                  for (int x : pm.getIncidenceIndex().getServersOnPath(s, p, n))
+                     expr.addTerm(-1.0, fXSVD(x, s, v, d));
+                  GRBLinExpr expr2 = new GRBLinExpr();
+                  expr2.addConstant(-1);
+                  expr2.addTerm(1.0, zSPDVar);
+                  master.addConstr(expr, GRB.GREATER_EQUAL, expr2, FD3);
+               }
+      }
+      if (isOn(RP2))
+         master.addConstr(demandsExpr, GRB.GREATER_EQUAL, zSPVar, RP2);
+      master.update();
+   }
+
+   private boolean isOn(String constraint) {
+      return Boolean.TRUE.equals(sce.getConstraints().get(constraint));
+   }
+
+   private static void addTerm(GRBModel master, GRBColumn column, double coeff, String constrName)
+         throws GRBException {
+      GRBConstr constr = master.getConstrByName(constrName);
+      if (constr != null)
+         column.addTerm(coeff, constr);
+   }
+
+   private GRBVar fXSVD(int x, int s, int v, int d) {
+      return masterVars.get(fXSVD + "[" + x + "][" + s + "][" + v + "][" + d + "]");
+   }
+
+   // duals of the link utilization constraints of the master, per unit of traffic
+   private double[] linkPrices(GRBModel master) throws GRBException {
+      double[] prices = new double[pm.getLinks().size()];
+      for (int l = 0; l < pm.getLinks().size(); l++) {
+         Edge link = pm.getLinks().get(l);
+         prices[l] = price(master, uL + "[" + link.getId() + "]") / (int) link.getAttribute(LINK_CAPACITY);
+      }
+      return prices;
+   }
+
+   // duals of the server utilization constraints of the master, per unit of load
+   private double[] serverPrices(GRBModel master) throws GRBException {
+      double[] prices = new double[pm.getServers().size()];
+      for (int x = 0; x < pm.getServers().size(); x++)
+         prices[x] = price(master, SpecificConstraints.uXName.format(new int[] { x }))
+               / pm.getServers().get(x).getCapacity();
+      return prices;
+   }
+
+   private double price(GRBModel master, String constrName) throws GRBException {
+      GRBConstr constr = master.getConstrByName(constrName);
+      if (constr == null)
+         return 0.0;
+      // more load is more cost when the dual is negative, in minimization
+      double pi = constr.get(GRB.DoubleAttr.Pi);
+      return Math.max(sce.isMaximization() ? pi : -pi, 0.0);
+   }
+
+   // adds the cheapest path of the service, with the functions on the cheapest server along it, if it improves all
+   // its current paths
+   private boolean priceService(int s, double[] linkPrices, double[] serverPrices) {
+      Service service = pm.getServices().get(s);
+      TrafficFlow trafficFlow = service.getTrafficFlow();
+      double traffic = 0;
+      for (int d : demands[s])
+         traffic += trafficFlow.getDemands().get(d);
+      double load = 0;
+      for (Function function : service.getFunctions())
+         load += traffic * (double) function.getAttribute(FUNCTION_LOAD_RATIO);
+      Map<Edge, Double> weights = new HashMap<>();
+      for (int l = 0; l < pm.getLinks().size(); l++) {
+         Edge link = pm.getLinks().get(l);
+         // link delay breaks ties between paths with the same price
+         weights.put(link, traffic * linkPrices[l] + EPSILON * (double) link.getAttribute(LINK_DELAY));
+      }
+      // cost of processing the functions of the service on every node, on its cheapest server
+      Map<Node, Double> nodeCosts = new HashMap<>();
+      for (Node node : pm.getNodes())
+         for (int x : pm.getIncidenceIndex().getServersOfNode(pm.getIncidenceIndex().getNodeIndex(node)))
+            nodeCosts.merge(node, load * serverPrices[x], Math::min);
+      double best = Double.MAX_VALUE;
+      for (Path path : trafficFlow.getPaths())
+         best = Math.min(best, cost(path, weights, nodeCosts));
+      Node source = node(trafficFlow.getSrc()), target = node(trafficFlow.getDst());
+      if (source == null || target == null)
+         return false;
+      // the cheapest path through every node with servers
+      Path cheapest = null;
+      double cheapestCost = Double.MAX_VALUE;
+      for (Node node : nodeCosts.keySet()) {
+         List<Edge> edges = shortestPath(source, node, weights);
+         List<Edge> tail = shortestPath(node, target, weights);
+         if (edges == null || tail == null)
+            continue;
+         edges.addAll(tail);
+         Path path = toPath(source, edges);
+         if (path == null)
+            continue;
+         double cost = cost(path, weights, nodeCosts);
+         if (cost < cheapestCost) {
+            cheapest = path;
+            cheapestCost = cost;
+         }
+      }
+      if (cheapest == null || cheapestCost >= best - EPSILON)
+         return false;
+      for (Path p : trafficFlow.getPaths())
+         if (p.getNodePath().equals(cheapest.getNodePath()))
+            return false;
+      trafficFlow.setAdmissiblePath(cheapest);
+      return true;
+   }
+
+   // links of the path and the cheapest node with servers along it
+   private static double cost(Path path, Map<Edge, Double> weights, Map<Node, Double> nodeCosts) {
+      double nodeCost = Double.MAX_VALUE;
+      for (Node node : path.getNodePath())
+         nodeCost = Math.min(nodeCost, nodeCosts.getOrDefault(node, Double.MAX_VALUE));
+      if (nodeCost == Double.MAX_VALUE)
+         return Double.MAX_VALUE;
+      return cost(path, weights) + nodeCost;
+   }
+
+   private static double cost(Path path, Map<Edge, Double> weights) {
+      double cost = 0;
+      for (Edge edge : path.getEdgePath())
+         cost += weights.get(edge);
+      return cost;
+   }
+
+   private Node node(String id) {
+      for (Node node : pm.getNodes())
+         if (node.getId().equals(id))
+            return node;
+      return null;
+   }
+
+   // path of the edges from the source, null if it visits a node twice
+   private static Path toPath(Node source, List<Edge> edges) {
+      Set<Node> visited = new HashSet<>();
+      visited.add(source);
+      Path path = new Path();
+      if (edges.isEmpty())
+         path.setRoot(source);
+      Node node = source;
+      for (Edge edge : edges) {
+         path.push(node, edge);
+         node = edge.getOpposite(node);
+         if (!visited.add(node))
+            return null;
+      }
+      return path;
+   }
+
+   private List<Edge> shortestPath(Node source, Node target, Map<Edge, Double> weights) {
+      Map<Node, Double> distance = new HashMap<>();
+      Map<Node, Edge> previous = new HashMap<>();
+      PriorityQueue<Map.Entry<Node, Double>> queue = new PriorityQueue<>(Map.Entry.comparingByValue());
+      distance.put(source, 0.0);
+      queue.add(new AbstractMap.SimpleEntry<>(source, 0.0));
+      Set<Node> visited = new HashSet<>();
+      while (!queue.isEmpty()) {
+         Node node = queue.poll().getKey();
+         if (!visited.add(node))
+            continue;
+         if (node == target)
+            break;
+         for (Edge edge : node.getEachLeavingEdge()) {
+            Double weight = weights.get(edge);
+            if (weight == null)
+               continue;
+            Node next = edge.getOpposite(node);
+            double d = distance.get(node) + weight;
+            if (!visited.contains(next) && d < distance.getOrDefault(next, Double.MAX_VALUE)) {
+               distance.put(next, d);
+               previous.put(next, edge);
+               queue.add(new AbstractMap.SimpleEntry<>(next, d));
+            }
+         }
+      }
+      if (source != target && !previous.containsKey(target))
+         return null;
+      LinkedList<Edge> edges = new LinkedList<>();
+      for (Node node = target; node != source; node = previous.get(node).getOpposite(node))
+         edges.addFirst(previous.get(node));
+      return edges;
+   }
+}
@@ -0,0 +1,95 @@
+package optimizer.lp;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.gurobi.gurobi.GRBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+
+import static optimizer.Definitions.*;
+import static optimizer.results.Auxiliary.printLog;
+
+// Constraint families generated once per model, with their number of constraints, non-zeros and build time
+public class ConstraintFamilies {
+
+   private static final Logger log = LoggerFactory.getLogger(ConstraintFamilies.class);
+   private final ConstraintSink sink;
+   private final LinkedHashMap<String, Stats> stats;
+   private final Deque<String> building;
+   private final Deque<long[]> counters;
+
+   public interface Family {
+      void build() throws GRBException;
+   }
+
+   public ConstraintFamilies(ConstraintSink sink) {
+      this.sink = sink;
+      this.stats = new LinkedHashMap<>();
+      this.building = new ArrayDeque<>();
+      this.counters = new ArrayDeque<>();
+   }
+
+   // generates the family unless it was already generated for this model
+   public boolean emit(String name, Family family) throws GRBException {
+      if (stats.containsKey(name) || building.contains(name)) {
+         printLog(log, WARNING, "constraint family [" + name + "] already generated");
+         return false;
+      }
+      // constraints, non-zeros and time at start, followed by the totals of the nested families
+      long[] frame = new long[] { sink.getNumConstrs(), sink.getNumNonZeros(), System.nanoTime(), 0, 0, 0 };
+      building.push(name);
+      counters.push(frame);
+      try {
+         family.build();
+      } finally {
+         building.pop();
+         counters.pop();
+      }
+      long constrs = sink.getNumConstrs() - frame[0];
+      long nonZeros = sink.getNumNonZeros() - frame[1];
+      long time = System.nanoTime() - frame[2];
+      if (!counters.isEmpty()) {
+         long[] parent = counters.peek();
+         parent[3] += constrs;
+         parent[4] += nonZeros;
+         parent[5] += time;
+      }
+      Stats familyStats = new Stats(constrs - frame[3], nonZeros - frame[4], (time - frame[5]) / 1e6);
+      stats.put(name, familyStats);
+      printLog(log, INFO, "constraint family [" + name + "] " + familyStats);
+      return true;
+   }
+
+   // generates a family shared by other families, unless it was already generated
+   public void require(String name, Family family) throws GRBException {
+      if (!stats.containsKey(name) && !building.contains(name))
+         emit(name, family);
+   }
+
+   public LinkedHashMap<String, Stats> getStats() {
+      return stats;
+   }
+
+   public static class Stats {
+      @JsonProperty("constraints")
+      private final long numConstrs;
+      @JsonProperty("non_zeros")
+      private final long numNonZeros;
+      @JsonProperty("build_time_ms")
+      private final double buildTime;
+
+      Stats(long numConstrs, long numNonZeros, double buildTime) {
+         this.numConstrs = numConstrs;
+         this.numNonZeros = numNonZeros;
+         this.buildTime = Math.round(buildTime * 100) / 100.0;
+      }
+
+      @Override
+      public String toString() {
+         return "[" + numConstrs + " constraints][" + numNonZeros + " non-zeros][" + buildTime + " ms]";
+      }
+   }
+}
@@ -0,0 +1,336 @@
+package optimizer.lp;
+
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBConstr;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBLinExpr;
+import com.gurobi.gurobi.GRBModel;
+import com.gurobi.gurobi.GRBVar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Buffers constraints and adds them in blocks, built per service in parallel if a pool is set
+public class ConstraintSink {
+
+   private final GRBModel model;
+   private final int flushSize;
+   private GRBLinExpr[] exprs;
+   private char[] senses;
+   private double[] rhs;
+   // name of every buffered constraint, or its name format and indices in compact names mode
+   private Object[] labels;
+   private int[][] keysOf;
+   private int size;
+   private long numConstrs;
+   private long numNonZeros;
+   private ForkJoinPool pool;
+   private final boolean compactNames;
+   // constraints added in compact names mode, with what is needed to build their names
+   private GRBConstr[] tableConstrs = new GRBConstr[0];
+   private Object[] tableLabels = new Object[0];
+   private int[][] tableKeys = new int[0][];
+   private int tableSize;
+   // indicator constraints are added one by one, there is no array-based call for them
+   private final List<Indicator> indicators = new ArrayList<>();
+
+   private static class Indicator {
+      GRBVar binVar;
+      int binVal;
+      GRBLinExpr expr;
+      char sense;
+      double rhs;
+      Object label;
+      int[] keys;
+   }
+
+   public interface ServiceBlock {
+      void build(ConstraintSink out, int s) throws GRBException;
+   }
+
+   public interface NameFormat {
+      String format(int[] keys);
+   }
+
+   public ConstraintSink(GRBModel model, int flushSize) {
+      this(model, flushSize, false);
+   }
+
+   public ConstraintSink(GRBModel model, int flushSize, boolean compactNames) {
+      this.model = model;
+      this.flushSize = Math.max(flushSize, 1);
+      this.compactNames = compactNames;
+      int capacity = Math.min(this.flushSize, 1024);
+      exprs = new GRBLinExpr[capacity];
+      senses = new char[capacity];
+      rhs = new double[capacity];
+      labels = new Object[capacity];
+      keysOf = new int[capacity][];
+   }
+
+   public void add(GRBLinExpr lhs, char sense, GRBLinExpr rhsExpr, String name) throws GRBException {
+      push(minus(lhs, rhsExpr), sense, 0.0, name, null);
+   }
+
+   public void add(GRBLinExpr lhs, char sense, GRBVar rhsVar, String name) throws GRBException {
+      push(minus(lhs, rhsVar), sense, 0.0, name, null);
+   }
+
+   public void add(GRBLinExpr lhs, char sense, double rhsValue, String name) throws GRBException {
+      push(minus(lhs, (GRBVar) null), sense, rhsValue, name, null);
+   }
+
+   public void add(GRBVar lhs, char sense, GRBLinExpr rhsExpr, String name) throws GRBException {
+      push(minus(term(lhs), rhsExpr), sense, 0.0, name, null);
+   }
+
+   public void add(GRBVar lhs, char sense, GRBVar rhsVar, String name) throws GRBException {
+      push(minus(term(lhs), rhsVar), sense, 0.0, name, null);
+   }
+
+   public void add(GRBVar lhs, char sense, double rhsValue, String name) throws GRBException {
+      push(term(lhs), sense, rhsValue, name, null);
+   }
+
+   // same as above, but the name is only built from the format and the indices when it is needed
+   public void add(GRBLinExpr lhs, char sense, GRBLinExpr rhsExpr, NameFormat format, int... keys)
+         throws GRBException {
+      push(minus(lhs, rhsExpr), sense, 0.0, format, keys);
+   }
+
+   public void add(GRBLinExpr lhs, char sense, GRBVar rhsVar, NameFormat format, int... keys) throws GRBException {
+      push(minus(lhs, rhsVar), sense, 0.0, format, keys);
+   }
+
+   public void add(GRBLinExpr lhs, char sense, double rhsValue, NameFormat format, int... keys) throws GRBException {
+      push(minus(lhs, (GRBVar) null), sense, rhsValue, format, keys);
+   }
+
+   public void add(GRBVar lhs, char sense, GRBLinExpr rhsExpr, NameFormat format, int... keys) throws GRBException {
+      push(minus(term(lhs), rhsExpr), sense, 0.0, format, keys);
+   }
+
+   public void add(GRBVar lhs, char sense, GRBVar rhsVar, NameFormat format, int... keys) throws GRBException {
+      push(minus(term(lhs), rhsVar), sense, 0.0, format, keys);
+   }
+
+   public void add(GRBVar lhs, char sense, double rhsValue, NameFormat format, int... keys) throws GRBException {
+      push(term(lhs), sense, rhsValue, format, keys);
+   }
+
+   // binVar = binVal implies lhs sense rhs
+   public void addIndicator(GRBVar binVar, int binVal, GRBLinExpr lhs, char sense, double rhsValue,
+         NameFormat format, int... keys) throws GRBException {
+      pushIndicator(binVar, binVal, minus(lhs, (GRBVar) null), sense, rhsValue, format, keys);
+   }
+
+   public void addIndicator(GRBVar binVar, int binVal, GRBLinExpr lhs, char sense, GRBVar rhsVar,
+         NameFormat format, int... keys) throws GRBException {
+      pushIndicator(binVar, binVal, minus(lhs, rhsVar), sense, 0.0, format, keys);
+   }
+
+   public void addIndicator(GRBVar binVar, int binVal, GRBVar lhs, char sense, double rhsValue, NameFormat format,
+         int... keys) throws GRBException {
+      pushIndicator(binVar, binVal, term(lhs), sense, rhsValue, format, keys);
+   }
+
+   private static GRBLinExpr term(GRBVar var) {
+      GRBLinExpr expr = new GRBLinExpr();
+      expr.addTerm(1.0, var);
+      return expr;
+   }
+
+   private static GRBLinExpr minus(GRBLinExpr lhs, GRBLinExpr rhsExpr) {
+      GRBLinExpr expr = new GRBLinExpr();
+      expr.add(lhs);
+      expr.multAdd(-1.0, rhsExpr);
+      return expr;
+   }
+
+   private static GRBLinExpr minus(GRBLinExpr lhs, GRBVar rhsVar) {
+      GRBLinExpr expr = new GRBLinExpr();
+      expr.add(lhs);
+      if (rhsVar != null)
+         expr.addTerm(-1.0, rhsVar);
+      return expr;
+   }
+
+   // constants are moved to the right hand side, since addConstrs takes it as a value
+   private void push(GRBLinExpr expr, char sense, double rhsValue, Object label, int[] keys) throws GRBException {
+      double constant = expr.getConstant();
+      if (constant != 0) {
+         expr.addConstant(-constant);
+         rhsValue -= constant;
+      }
+      if (!compactNames && keys != null) {
+         label = ((NameFormat) label).format(keys);
+         keys = null;
+      }
+      if (size == exprs.length) {
+         int capacity = Math.min(2 * exprs.length, flushSize);
+         exprs = Arrays.copyOf(exprs, capacity);
+         senses = Arrays.copyOf(senses, capacity);
+         rhs = Arrays.copyOf(rhs, capacity);
+         labels = Arrays.copyOf(labels, capacity);
+         keysOf = Arrays.copyOf(keysOf, capacity);
+      }
+      exprs[size] = expr;
+      senses[size] = sense;
+      rhs[size] = rhsValue;
+      labels[size] = label;
+      keysOf[size] = keys;
+      size++;
+      numConstrs++;
+      numNonZeros += expr.size();
+      if (size >= flushSize)
+         flush();
+   }
+
+   private void pushIndicator(GRBVar binVar, int binVal, GRBLinExpr expr, char sense, double rhsValue, Object label,
+         int[] keys) throws GRBException {
+      Indicator indicator = new Indicator();
+      indicator.binVar = binVar;
+      indicator.binVal = binVal;
+      indicator.expr = expr;
+      indicator.sense = sense;
+      indicator.rhs = rhsValue - expr.getConstant();
+      expr.addConstant(-expr.getConstant());
+      indicator.label = label;
+      indicator.keys = keys;
+      indicators.add(indicator);
+      numConstrs++;
+      numNonZeros += expr.size() + 1;
+      if (size + indicators.size() >= flushSize)
+         flush();
+   }
+
+   public void flush() throws GRBException {
+      flushIndicators();
+      if (size == 0)
+         return;
+      GRBLinExpr[] flushExprs = size == exprs.length ? exprs : Arrays.copyOf(exprs, size);
+      char[] flushSenses = size == exprs.length ? senses : Arrays.copyOf(senses, size);
+      double[] flushRhs = size == exprs.length ? rhs : Arrays.copyOf(rhs, size);
+      if (!compactNames) {
+         String[] names = new String[size];
+         for (int i = 0; i < size; i++)
+            names[i] = (String) labels[i];
+         model.addConstrs(flushExprs, flushSenses, flushRhs, names);
+      } else {
+         // constraints get the default short names and keep their labels until names are resolved
+         GRBConstr[] constrs = model.addConstrs(flushExprs, flushSenses, flushRhs, null);
+         if (tableSize + size > tableConstrs.length) {
+            int capacity = Math.max(2 * tableConstrs.length, tableSize + size);
+            tableConstrs = Arrays.copyOf(tableConstrs, capacity);
+            tableLabels = Arrays.copyOf(tableLabels, capacity);
+            tableKeys = Arrays.copyOf(tableKeys, capacity);
+         }
+         System.arraycopy(constrs, 0, tableConstrs, tableSize, size);
+         System.arraycopy(labels, 0, tableLabels, tableSize, size);
+         System.arraycopy(keysOf, 0, tableKeys, tableSize, size);
+         tableSize += size;
+      }
+      Arrays.fill(exprs, 0, size, null);
+      Arrays.fill(labels, 0, size, null);
+      Arrays.fill(keysOf, 0, size, null);
+      size = 0;
+   }
+
+   private void flushIndicators() throws GRBException {
+      for (Indicator indicator : indicators) {
+         String name = null;
+         if (!compactNames)
+            name = indicator.keys == null ? (String) indicator.label
+                  : ((NameFormat) indicator.label).format(indicator.keys);
+         model.addGenConstrIndicator(indicator.binVar, indicator.binVal, indicator.expr, indicator.sense,
+               indicator.rhs, name);
+      }
+      indicators.clear();
+   }
+
+   // sets the readable names of the constraints added in compact names mode, e.g. before computing an IIS
+   public void resolveNames() throws GRBException {
+      flush();
+      if (tableSize == 0)
+         return;
+      String[] names = new String[tableSize];
+      for (int i = 0; i < tableSize; i++)
+         names[i] = tableKeys[i] == null ? (String) tableLabels[i] : ((NameFormat) tableLabels[i]).format(tableKeys[i]);
+      model.set(GRB.StringAttr.ConstrName, Arrays.copyOf(tableConstrs, tableSize), names);
+      tableConstrs = new GRBConstr[0];
+      tableLabels = new Object[0];
+      tableKeys = new int[0][];
+      tableSize = 0;
+   }
+
+   // builds the constraints of every service, in parallel if a pool is set, and adds them in service order
+   public void addPerService(int numServices, ServiceBlock block) throws GRBException {
+      if (pool == null) {
+         for (int s = 0; s < numServices; s++)
+            block.build(this, s);
+         return;
+      }
+      List<ConstraintSink> buffers;
+      try {
+         buffers = pool.submit(() -> IntStream.range(0, numServices).parallel().mapToObj(s -> {
+            ConstraintSink buffer = new ConstraintSink(null, Integer.MAX_VALUE, compactNames);
+            try {
+               block.build(buffer, s);
+            } catch (GRBException e) {
+               throw new CompletionException(e);
+            }
+            return buffer;
+         }).collect(Collectors.toList())).get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new GRBException("parallel constraint build interrupted");
+      } catch (ExecutionException e) {
+         // the error of the builder is rethrown as it is, with its code and stack trace
+         Throwable cause = e.getCause();
+         while (cause instanceof CompletionException && cause.getCause() != null)
+            cause = cause.getCause();
+         if (cause instanceof GRBException)
+            throw (GRBException) cause;
+         if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+         if (cause instanceof Error)
+            throw (Error) cause;
+         GRBException exception = new GRBException("parallel constraint build failed: " + cause);
+         exception.initCause(cause);
+         throw exception;
+      }
+      for (ConstraintSink buffer : buffers) {
+         for (int i = 0; i < buffer.size; i++)
+            push(buffer.exprs[i], buffer.senses[i], buffer.rhs[i], buffer.labels[i], buffer.keysOf[i]);
+         for (Indicator indicator : buffer.indicators)
+            pushIndicator(indicator.binVar, indicator.binVal, indicator.expr, indicator.sense, indicator.rhs,
+                  indicator.label, indicator.keys);
+      }
+   }
+
+   public void setParallelism(int threads) {
+      if (pool != null)
+         pool.shutdown();
+      pool = threads > 1 ? new ForkJoinPool(threads) : null;
+   }
+
+   // adds the pending constraints and releases the build threads
+   public void close() throws GRBException {
+      flush();
+      setParallelism(0);
+   }
+
+   public long getNumConstrs() {
+      return numConstrs;
+   }
+
+   public long getNumNonZeros() {
+      return numNonZeros;
+   }
+}
@@ -4,10 +4,14 @@ import com.gurobi.gurobi.GRB;
 import com.gurobi.gurobi.GRBException;
 import com.gurobi.gurobi.GRBLinExpr;
 import optimizer.elements.Service;
+import optimizer.lp.ConstraintSink.NameFormat;
 import optimizer.Parameters;
 import optimizer.gui.Scenario;
+import optimizer.utils.IncidenceIndex;
 import org.graphstream.graph.Node;
 
+import java.util.List;
+
 import static optimizer.Definitions.*;
 
 public class Constraints {
@@ -15,109 +19,127 @@ public class Constraints {
    private ModelLP modelLP;
    private VariablesLP vars;
    private Parameters pm;
+   private IncidenceIndex index;
+   private ConstraintSink sink;
+   private ConstraintFamilies families;
+
+   // constraint names, only built when needed if compact names are used
+   static final NameFormat rp1Name = k -> RP1 + "[s][d] --> " + "[" + k[0] + "][" + k[1] + "]";
+   private final NameFormat rp2_1Name = k -> RP2 + "[s][p][d] --> " + "[" + k[0] + "]" + nodePath(k[0], k[1]) + "["
+         + k[2] + "]";
+   private final NameFormat rp2_2Name = k -> RP2 + "[s][p] --> " + "[" + k[0] + "]" + nodePath(k[0], k[1]);
+   static final NameFormat pf1Name = k -> PF1 + "[s][v] --> " + "[" + k[0] + "][" + k[1] + "]";
+   private final NameFormat pf2Name = k -> PF2 + "[s][p][d][v] --> " + "[" + k[0] + "]" + nodePath(k[0], k[1]) + "["
+         + k[2] + "][" + k[3] + "]";
+   private final NameFormat fd1Name = k -> FD1 + "[s][v][d] --> " + "[" + k[0] + "][" + k[1] + "][" + k[2] + "]";
+   private final NameFormat fd2_1Name = k -> FD2 + "_1[s][v][x][d] --> " + "[" + k[0] + "][" + k[1] + "][" + k[2]
+         + "][" + k[3] + "]";
+   private final NameFormat fd2_2Name = k -> FD2 + "_2[s][v][x] --> " + "[" + k[0] + "][" + k[1] + "][" + k[2] + "]";
+   private final NameFormat fd3Name = k -> FD3 + "[s][d][p][v][n] --> " + "[" + k[0] + "][" + k[1] + "]"
+         + nodePath(k[0], k[2]) + "[" + k[3] + "][" + nodePath(k[0], k[2]).get(k[4]).getId() + "]";
 
    public Constraints(Parameters pm, ModelLP modelLP, Scenario scenario, boolean[][][] initialPlacement) {
       try {
          this.pm = pm;
          this.modelLP = modelLP;
          this.vars = modelLP.getVars();
+         this.index = pm.getIncidenceIndex();
+         this.sink = modelLP.getSink();
+         this.families = modelLP.getFamilies();
 
          // model specific constraints
          new SpecificConstraints(pm, modelLP, scenario, initialPlacement);
 
-         // general constraints
+         // general constraints, built per service
+         int numServices = pm.getServices().size();
          if (scenario.getConstraints().get(RP1))
-            RP1();
+            families.emit(RP1, () -> sink.addPerService(numServices, this::RP1));
          if (scenario.getConstraints().get(RP2))
-            RP2();
+            families.emit(RP2, () -> {
+               sink.addPerService(numServices, this::RP2_1);
+               sink.addPerService(numServices, this::RP2_2);
+            });
          if (scenario.getConstraints().get(PF1))
-            PF1();
+            families.emit(PF1, () -> sink.addPerService(numServices, this::PF1));
          if (scenario.getConstraints().get(PF2))
-            PF2();
+            families.emit(PF2, () -> sink.addPerService(numServices, this::PF2));
          if (scenario.getConstraints().get(PF3))
-            PF3();
+            families.emit(PF3, this::PF3);
          if (scenario.getConstraints().get(FD1))
-            FD1();
+            families.emit(FD1, () -> sink.addPerService(numServices, this::FD1));
          if (scenario.getConstraints().get(FD2))
-            FD2();
+            families.emit(FD2, () -> {
+               sink.addPerService(numServices, this::FD2_1);
+               sink.addPerService(numServices, this::FD2_2);
+            });
          if (scenario.getConstraints().get(FD3))
-            FD3();
+            families.emit(FD3, () -> sink.addPerService(numServices, this::FD3));
+
+         // add the constraints still buffered
+         sink.close();
       } catch (Exception e) {
          e.printStackTrace();
       }
    }
 
+   private List<Node> nodePath(int s, int p) {
+      return pm.getServices().get(s).getTrafficFlow().getPaths().get(p).getNodePath();
+   }
+
    // One path per demand
-   private void RP1() throws GRBException {
-      for (int s = 0; s < pm.getServices().size(); s++)
-         for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-            if (pm.getServices().get(s).getTrafficFlow().getAux().get(d)) {
-               GRBLinExpr expr = new GRBLinExpr();
-               for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
-                  expr.addTerm(1.0, vars.zSPD[s][p][d]);
-               modelLP.getGrbModel().addConstr(expr, GRB.EQUAL, 1.0, RP1 + "[s][d] --> " + "[" + s + "][" + d + "]");
-            }
+   private void RP1(ConstraintSink out, int s) throws GRBException {
+      for (int d : vars.getDemands(s)) {
+         GRBLinExpr expr = new GRBLinExpr();
+         for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
+            expr.addTerm(1.0, vars.zSPD[s][p][d]);
+         out.add(expr, GRB.EQUAL, 1.0, rp1Name, s, d);
+      }
    }
 
    // Activate path for service
-   private void RP2() throws GRBException {
-      for (int s = 0; s < pm.getServices().size(); s++)
-         for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
-            for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-               if (pm.getServices().get(s).getTrafficFlow().getAux().get(d))
-                  modelLP.getGrbModel().addConstr(vars.zSPD[s][p][d], GRB.LESS_EQUAL, vars.zSP[s][p],
-                        RP2 + "[s][p][d] --> " + "[" + s + "]"
-                              + pm.getServices().get(s).getTrafficFlow().getPaths().get(p).getNodePath() + "[" + d
-                              + "]");
-      for (int s = 0; s < pm.getServices().size(); s++)
-         for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++) {
-            GRBLinExpr expr = new GRBLinExpr();
-            for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-               if (pm.getServices().get(s).getTrafficFlow().getAux().get(d))
-                  expr.addTerm(1.0, vars.zSPD[s][p][d]);
-            modelLP.getGrbModel().addConstr(expr, GRB.GREATER_EQUAL, vars.zSP[s][p], RP2 + "[s][p] --> " + "[" + s + "]"
-                  + pm.getServices().get(s).getTrafficFlow().getPaths().get(p).getNodePath());
-         }
+   private void RP2_1(ConstraintSink out, int s) throws GRBException {
+      for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
+         for (int d : vars.getDemands(s))
+            out.add(vars.zSPD[s][p][d], GRB.LESS_EQUAL, vars.zSP[s][p], rp2_1Name, s, p, d);
+   }
+
+   private void RP2_2(ConstraintSink out, int s) throws GRBException {
+      for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++) {
+         GRBLinExpr expr = new GRBLinExpr();
+         for (int d : vars.getDemands(s))
+            expr.addTerm(1.0, vars.zSPD[s][p][d]);
+         out.add(expr, GRB.GREATER_EQUAL, vars.zSP[s][p], rp2_2Name, s, p);
+      }
    }
 
    // Paths constrained by functions
-   private void PF1() throws GRBException {
-      for (int s = 0; s < pm.getServices().size(); s++)
-         for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++) {
-            GRBLinExpr expr = new GRBLinExpr();
-            for (int x = 0; x < pm.getServers().size(); x++)
-               expr.addTerm(1.0, vars.fXSV[x][s][v]);
-            if ((boolean) pm.getServices().get(s).getFunctions().get(v).getAttribute(FUNCTION_REPLICABLE)) {
-               GRBLinExpr expr2 = new GRBLinExpr();
-               for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
-                  expr2.addTerm(1.0, vars.zSP[s][p]);
-               modelLP.getGrbModel().addConstr(expr, GRB.LESS_EQUAL, expr2,
-                     PF1 + "[s][v] --> " + "[" + s + "][" + v + "]");
-            } else
-               modelLP.getGrbModel().addConstr(expr, GRB.LESS_EQUAL, 1.0,
-                     PF1 + "[s][v] --> " + "[" + s + "][" + v + "]");
-         }
+   private void PF1(ConstraintSink out, int s) throws GRBException {
+      for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++) {
+         GRBLinExpr expr = new GRBLinExpr();
+         for (int x : vars.getServers(s))
+            expr.addTerm(1.0, vars.fXSV[x][s][v]);
+         if ((boolean) pm.getServices().get(s).getFunctions().get(v).getAttribute(FUNCTION_REPLICABLE)) {
+            GRBLinExpr expr2 = new GRBLinExpr();
+            for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
+               expr2.addTerm(1.0, vars.zSP[s][p]);
+            out.add(expr, GRB.LESS_EQUAL, expr2, pf1Name, s, v);
+         } else
+            out.add(expr, GRB.LESS_EQUAL, 1.0, pf1Name, s, v);
+      }
    }
 
    // Function placement
-   private void PF2() throws GRBException {
-      for (int s = 0; s < pm.getServices().size(); s++) {
-         Service service = pm.getServices().get(s);
-         for (int p = 0; p < service.getTrafficFlow().getPaths().size(); p++)
-            for (int d = 0; d < service.getTrafficFlow().getDemands().size(); d++)
-               if (pm.getServices().get(s).getTrafficFlow().getAux().get(d))
-                  for (int v = 0; v < service.getFunctions().size(); v++) {
-                     GRBLinExpr expr = new GRBLinExpr();
-                     for (int n = 0; n < service.getTrafficFlow().getPaths().get(p).getNodePath().size(); n++)
-                        for (int x = 0; x < pm.getServers().size(); x++)
-                           if (pm.getServers().get(x).getParent()
-                                 .equals(service.getTrafficFlow().getPaths().get(p).getNodePath().get(n)))
-                              expr.addTerm(1.0, vars.fXSVD[x][s][v][d]);
-                     modelLP.getGrbModel().addConstr(vars.zSPD[s][p][d], GRB.LESS_EQUAL, expr,
-                           PF2 + "[s][p][d][v] --> " + "[" + s + "]"
-                                 + pm.getServices().get(s).getTrafficFlow().getPaths().get(p).getNodePath() + "[" + d
-                                 + "][" + v + "]");
-                  }
+   private void PF2(ConstraintSink out, int s) throws GRBException {
+      Service service = pm.getServices().get(s);
+      for (int p = 0; p < service.getTrafficFlow().getPaths().size(); p++) {
+         int[] pathServers = index.getServersAlongPath(s, p);
+         for (int d : vars.getDemands(s))
+            for (int v = 0; v < service.getFunctions().size(); v++) {
+               GRBLinExpr expr = new GRBLinExpr();
+               for (int x : pathServers)
+                  expr.addTerm(1.0, vars.fXSVD[x][s][v][d]);
+               out.add(vars.zSPD[s][p][d], GRB.LESS_EQUAL, expr, pf2Name, s, p, d, v);
+            }
       }
    }
 
@@ -129,79 +151,64 @@ public class Constraints {
             GRBLinExpr expr2 = new GRBLinExpr();
             for (int s = 0; s < pm.getServices().size(); s++)
                for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++) {
+                  if (vars.fXSV[x][s][v] == null)
+                     continue;
                   expr.addTerm(1.0 / pm.getTotalNumFunctions(), vars.fXSV[x][s][v]);
                   expr2.addTerm(1.0, vars.fXSV[x][s][v]);
                }
-            modelLP.getGrbModel().addConstr(vars.fX[x], GRB.GREATER_EQUAL, expr, PF3);
-            modelLP.getGrbModel().addConstr(vars.fX[x], GRB.LESS_EQUAL, expr2, PF3);
+            sink.add(vars.fX[x], GRB.GREATER_EQUAL, expr, PF3);
+            sink.add(vars.fX[x], GRB.LESS_EQUAL, expr2, PF3);
          }
    }
 
    // One function per demand
-   private void FD1() throws GRBException {
-      for (int s = 0; s < pm.getServices().size(); s++)
-         for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
-            for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-               if (pm.getServices().get(s).getTrafficFlow().getAux().get(d)) {
-                  GRBLinExpr expr = new GRBLinExpr();
-                  for (int x = 0; x < pm.getServers().size(); x++)
-                     expr.addTerm(1.0, vars.fXSVD[x][s][v][d]);
-                  modelLP.getGrbModel().addConstr(expr, GRB.EQUAL, 1.0,
-                        FD1 + "[s][v][d] --> " + "[" + s + "][" + v + "][" + d + "]");
-               }
+   private void FD1(ConstraintSink out, int s) throws GRBException {
+      for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
+         for (int d : vars.getDemands(s)) {
+            GRBLinExpr expr = new GRBLinExpr();
+            for (int x : vars.getServers(s))
+               expr.addTerm(1.0, vars.fXSVD[x][s][v][d]);
+            out.add(expr, GRB.EQUAL, 1.0, fd1Name, s, v, d);
+         }
    }
 
    // Mapping functions with demands
-   private void FD2() throws GRBException {
-      for (int s = 0; s < pm.getServices().size(); s++)
-         for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
-            for (int x = 0; x < pm.getServers().size(); x++)
-               for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-                  if (pm.getServices().get(s).getTrafficFlow().getAux().get(d))
-                     modelLP.getGrbModel().addConstr(vars.fXSVD[x][s][v][d], GRB.LESS_EQUAL, vars.fXSV[x][s][v],
-                           FD2 + "_1[s][v][x][d] --> " + "[" + s + "][" + v + "][" + x + "][" + d + "]");
-      for (int s = 0; s < pm.getServices().size(); s++)
-         for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
-            for (int x = 0; x < pm.getServers().size(); x++) {
-               GRBLinExpr expr = new GRBLinExpr();
-               for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-                  if (pm.getServices().get(s).getTrafficFlow().getAux().get(d))
-                     expr.addTerm(1.0, vars.fXSVD[x][s][v][d]);
-               modelLP.getGrbModel().addConstr(expr, GRB.GREATER_EQUAL, vars.fXSV[x][s][v],
-                     FD2 + "_2[s][v][x] --> " + "[" + s + "][" + v + "][" + x + "]");
-            }
+   private void FD2_1(ConstraintSink out, int s) throws GRBException {
+      for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
+         for (int x : vars.getServers(s))
+            for (int d : vars.getDemands(s))
+               out.add(vars.fXSVD[x][s][v][d], GRB.LESS_EQUAL, vars.fXSV[x][s][v], fd2_1Name, s, v, x, d);
+   }
+
+   private void FD2_2(ConstraintSink out, int s) throws GRBException {
+      for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
+         for (int x : vars.getServers(s)) {
+            GRBLinExpr expr = new GRBLinExpr();
+            for (int d : vars.getDemands(s))
+               expr.addTerm(1.0, vars.fXSVD[x][s][v][d]);
+            out.add(expr, GRB.GREATER_EQUAL, vars.fXSV[x][s][v], fd2_2Name, s, v, x);
+         }
    }
 
    // Functions sequence order
-   private void FD3() throws GRBException {
-      for (int s = 0; s < pm.getServices().size(); s++) {
-         Service se = pm.getServices().get(s);
-         for (int d = 0; d < se.getTrafficFlow().getDemands().size(); d++)
-            if (pm.getServices().get(s).getTrafficFlow().getAux().get(d)) {
-               for (int p = 0; p < se.getTrafficFlow().getPaths().size(); p++)
-                  for (int v = 1; v < se.getFunctions().size(); v++) {
-                     for (int n = 0; n < se.getTrafficFlow().getPaths().get(p).getNodePath().size(); n++) {
-                        GRBLinExpr expr = new GRBLinExpr();
-                        GRBLinExpr expr2 = new GRBLinExpr();
-                        Node nodeN = se.getTrafficFlow().getPaths().get(p).getNodePath().get(n);
-                        for (int m = 0; m <= n; m++) {
-                           Node nodeM = se.getTrafficFlow().getPaths().get(p).getNodePath().get(m);
-                           for (int x = 0; x < pm.getServers().size(); x++)
-                              if (pm.getServers().get(x).getParent().equals(nodeM))
-                                 expr.addTerm(1.0, vars.fXSVD[x][s][v - 1][d]);
-                        }
-                        for (int x = 0; x < pm.getServers().size(); x++)
-                           if (pm.getServers().get(x).getParent().equals(nodeN))
-                              expr.addTerm(-1.0, vars.fXSVD[x][s][v][d]);
-
-                        expr2.addConstant(-1);
-                        expr2.addTerm(1.0, vars.zSPD[s][p][d]);
-                        modelLP.getGrbModel().addConstr(expr, GRB.GREATER_EQUAL, expr2,
-                              FD3 + "[s][d][p][v][n] --> " + "[" + s + "][" + d + "]"
-                                    + pm.getServices().get(s).getTrafficFlow().getPaths().get(p).getNodePath() + "[" + v
-                                    + "][" + se.getTrafficFlow().getPaths().get(p).getNodePath().get(n).getId() + "]");
-                     }
-                  }
+   private void FD3(ConstraintSink out, int s) throws GRBException {
+      Service se = pm.getServices().get(s);
+      for (int d : vars.getDemands(s)) {
+         for (int p = 0; p < se.getTrafficFlow().getPaths().size(); p++)
+            for (int v = 1; v < se.getFunctions().size(); v++) {
+               for (int n = 0; n < se.getTrafficFlow().getPaths().get(p).getNodePath().size(); n++) {
+                  GRBLinExpr expr = new GRBLinExpr();
+                  GRBLinExpr expr2 = new GRBLinExpr();
+                  for (int m = 0; m <= n; m++)
+                     for (int x : index.getServersOnPath(s, p, m))
+                        expr.addTerm(1.0, vars.fXSVD[x][s][v - 1][d]);
+                  for (int x : index.getServersOnPath(s, p, n))
+                     expr.addTerm(-1.0, vars.fXSVD[x][s][v][d]);
+
+                  expr2.addConstant(-1);
+                  expr2.addTerm(1.0, vars.zSPD[s][p][d]);
+                  out.add(expr, GRB.GREATER_EQUAL, expr2, fd3Name, s, d, p, v, n);
+               }
             }
       }
    }
@@ -1,14 +1,85 @@
 package optimizer.lp;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.TreeSet;
 
 public class CostFunctions {
 
+   private static CostFunctions linear;
    private LinkedList<Double[]> values = new LinkedList<>();
 
    public CostFunctions() {
    }
 
+   // linear cost functions of the aux files, only read once
+   public static synchronized CostFunctions linear() {
+      if (linear == null) {
+         TypeReference<CostFunctions> typeReference = new TypeReference<>() {
+         };
+         InputStream inputStream = TypeReference.class.getResourceAsStream("/aux_files/linear-cost-functions.yml");
+         ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+         try {
+            linear = mapper.readValue(inputStream, typeReference);
+         } catch (IOException e) {
+            e.printStackTrace();
+         }
+      }
+      return linear;
+   }
+
+   // cost of a utilization, the max. of all functions and zero
+   public double cost(double utilization) {
+      double cost = 0;
+      for (Double[] function : values)
+         cost = Math.max(cost, function[0] * utilization + function[1]);
+      return cost;
+   }
+
+   // breakpoints {x, y} of the cost between lb and ub, where the slope of the cost changes
+   public double[][] breakpoints(double lb, double ub) {
+      TreeSet<Double> candidates = new TreeSet<>();
+      candidates.add(lb);
+      candidates.add(ub);
+      List<Double[]> functions = new ArrayList<>(values);
+      functions.add(new Double[] { 0.0, 0.0 });
+      for (int i = 0; i < functions.size(); i++)
+         for (int j = i + 1; j < functions.size(); j++) {
+            double slopes = functions.get(i)[0] - functions.get(j)[0];
+            if (slopes == 0)
+               continue;
+            double x = (functions.get(j)[1] - functions.get(i)[1]) / slopes;
+            if (x > lb && x < ub)
+               candidates.add(x);
+         }
+      List<double[]> points = new ArrayList<>();
+      for (double x : candidates) {
+         double[] point = new double[] { x, cost(x) };
+         // drops the previous point if it lies on the segment to the new one
+         int n = points.size();
+         if (n >= 2) {
+            double[] a = points.get(n - 2), b = points.get(n - 1);
+            double cross = (b[0] - a[0]) * (point[1] - a[1]) - (b[1] - a[1]) * (point[0] - a[0]);
+            if (Math.abs(cross) < 1e-12)
+               points.remove(n - 1);
+         }
+         points.add(point);
+      }
+      double[][] breakpoints = new double[2][points.size()];
+      for (int i = 0; i < points.size(); i++) {
+         breakpoints[0][i] = points.get(i)[0];
+         breakpoints[1][i] = points.get(i)[1];
+      }
+      return breakpoints;
+   }
+
    public LinkedList<Double[]> getValues() {
       return values;
    }
@@ -0,0 +1,49 @@
+package optimizer.lp;
+
+import optimizer.Parameters;
+import optimizer.elements.Function;
+import optimizer.elements.Service;
+import optimizer.utils.IncidenceIndex;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Path;
+
+import static optimizer.Definitions.*;
+
+// Big-M values of the delay constraints, per service and path
+public class DelayBounds {
+
+   private final double[][] bounds;
+
+   public DelayBounds(Parameters pm, boolean[][][] initialPlacement, boolean onePlacementPerDemand) {
+      IncidenceIndex index = pm.getIncidenceIndex();
+      bounds = new double[pm.getServices().size()][];
+      for (int s = 0; s < pm.getServices().size(); s++) {
+         Service service = pm.getServices().get(s);
+         bounds[s] = new double[service.getTrafficFlow().getPaths().size()];
+         double downtime = 0;
+         if (initialPlacement != null && service.getAttributes().containsKey(SERVICE_DOWNTIME))
+            for (int x = 0; x < pm.getServers().size(); x++)
+               for (int v = 0; v < service.getFunctions().size(); v++)
+                  if (initialPlacement[x][s][v])
+                     downtime += (double) service.getAttribute(SERVICE_DOWNTIME); // in ms
+         for (int p = 0; p < service.getTrafficFlow().getPaths().size(); p++) {
+            Path path = service.getTrafficFlow().getPaths().get(p);
+            double bound = downtime;
+            for (Edge link : path.getEdgePath())
+               bound += (double) link.getAttribute(LINK_DELAY) * 1000; // in ms
+            int servers = index.getServersAlongPath(s, p).length;
+            if (servers > 0)
+               for (Function function : service.getFunctions()) {
+                  // with one placement per demand, only one server of the path processes the function
+                  double maxDelay = (double) function.getAttribute(FUNCTION_MAX_DELAY); // in ms
+                  bound += onePlacementPerDemand ? maxDelay : maxDelay * servers;
+               }
+            bounds[s][p] = bound;
+         }
+      }
+   }
+
+   public double get(int s, int p) {
+      return bounds[s][p];
+   }
+}
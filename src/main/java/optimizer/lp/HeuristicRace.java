@@ -0,0 +1,94 @@
+package optimizer.lp;
+
+import com.gurobi.gurobi.GRBModel;
+import optimizer.Parameters;
+import optimizer.algorithms.NetworkManager;
+import optimizer.algorithms.VariablesAlg;
+import optimizer.algorithms.heuristics.HeuristicAlgorithm;
+import optimizer.results.Auxiliary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static optimizer.Definitions.*;
+import static optimizer.results.Auxiliary.printLog;
+
+// Heuristics running while the model is solved, their solutions are passed to the solver by the callback
+public class HeuristicRace {
+
+   private static final Logger log = LoggerFactory.getLogger(HeuristicRace.class);
+   private final Parameters pm;
+   private final String objFunc;
+   private final VariablesLP variablesLP;
+   private final ServerSymmetry symmetry;
+   private final VariablesAlg initialPlacementVars;
+   private final Queue<MipStart> solutions;
+   private ExecutorService executor;
+   private volatile boolean stopped;
+
+   public HeuristicRace(Parameters pm, String objFunc, VariablesLP variablesLP, ServerSymmetry symmetry,
+         GRBModel initialModel) {
+      this.pm = pm;
+      this.objFunc = objFunc;
+      this.variablesLP = variablesLP;
+      this.symmetry = symmetry;
+      this.initialPlacementVars = initialModel != null ? new VariablesAlg(pm, initialModel) : null;
+      this.solutions = new ConcurrentLinkedQueue<>();
+   }
+
+   public void start() {
+      executor = Executors.newFixedThreadPool((int) pm.getGlobal(RACE_THREADS), r -> {
+         Thread thread = new Thread(r, "heuristic-race");
+         thread.setDaemon(true);
+         return thread;
+      });
+      executor.submit(() -> run(GRD));
+      for (int i = 0; i < (int) pm.getGlobal(RACE_RF_RUNS); i++)
+         executor.submit(() -> run(RF));
+   }
+
+   private void run(String algorithm) {
+      try {
+         VariablesAlg vars = new VariablesAlg(pm, initialPlacementVars, objFunc);
+         HeuristicAlgorithm heuristicAlgorithm = new HeuristicAlgorithm(pm, vars, new NetworkManager(pm, vars));
+         heuristicAlgorithm.setCancelled(() -> stopped);
+         if (algorithm.equals(GRD))
+            heuristicAlgorithm.allocateServicesGreedy(algorithm);
+         else
+            heuristicAlgorithm.allocateServices(algorithm);
+         // solutions of a finished solve are dropped
+         if (stopped)
+            return;
+         vars.generateRestOfVariablesForResults();
+         solutions.add(MipStart.collect(pm, variablesLP, vars, symmetry));
+         printLog(log, INFO, algorithm + " solution queued [" + Auxiliary.roundDouble(vars.objVal, 4) + "]");
+      } catch (Exception e) {
+         printLog(log, WARNING, algorithm + " failed: " + e.getMessage());
+      }
+   }
+
+   // next heuristic solution not yet passed to the solver, or null
+   public MipStart poll() {
+      return stopped ? null : solutions.poll();
+   }
+
+   // the running heuristics stop at their next service, so their threads are free for the next solve
+   public void stop() {
+      stopped = true;
+      solutions.clear();
+      if (executor == null)
+         return;
+      executor.shutdownNow();
+      try {
+         if (!executor.awaitTermination(10, TimeUnit.SECONDS))
+            printLog(log, WARNING, "heuristics still running after the solve");
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
@@ -0,0 +1,105 @@
+package optimizer.lp;
+
+import com.gurobi.gurobi.GRBVar;
+import optimizer.Parameters;
+import optimizer.gui.ResultsGUI;
+import optimizer.gui.Scenario;
+import optimizer.results.Auxiliary;
+import optimizer.results.Results;
+import optimizer.results.ResultsManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static optimizer.Definitions.*;
+import static optimizer.results.Auxiliary.printLog;
+
+// Builds and publishes the results of the latest incumbent in a background thread
+public class IncumbentPublisher {
+
+   private static final Logger log = LoggerFactory.getLogger(IncumbentPublisher.class);
+   private final Parameters pm;
+   private final Scenario sce;
+   private final boolean[][][] initialPlacement;
+   private final ResultsManager resultsManager;
+   private final String outputFileName;
+   private final SolutionValues solution;
+   private final AtomicReference<double[]> pending;
+   private final ExecutorService executor;
+   private final long startTime;
+
+   public IncumbentPublisher(Parameters pm, Scenario sce, VariablesLP variablesLP, boolean[][][] initialPlacement,
+         ResultsManager resultsManager, String outputFileName) {
+      this.pm = pm;
+      this.sce = sce;
+      this.initialPlacement = initialPlacement;
+      this.resultsManager = resultsManager;
+      this.outputFileName = outputFileName;
+      solution = new SolutionValues();
+      solution.add(zSP, variablesLP.zSP, true);
+      solution.add(zSPD, variablesLP.zSPD, true);
+      solution.add(fX, variablesLP.fX, true);
+      solution.add(fXSV, variablesLP.fXSV, true);
+      solution.add(fXSVD, variablesLP.fXSVD, true);
+      solution.add(uL, variablesLP.uL, false);
+      solution.add(uX, variablesLP.uX, false);
+      solution.add(gSVXY, variablesLP.gSVXY, true);
+      solution.add(hSVP, variablesLP.hSVP, true);
+      solution.add(dSVXD, variablesLP.dSVXD, false);
+      solution.add(qSDPNM, variablesLP.qSDPNM, true);
+      pending = new AtomicReference<>();
+      executor = Executors.newSingleThreadExecutor(r -> {
+         Thread thread = new Thread(r, "incumbent-publisher");
+         thread.setDaemon(true);
+         return thread;
+      });
+      startTime = System.currentTimeMillis();
+   }
+
+   // variables whose values are passed to publish, in order
+   public GRBVar[] getVars() {
+      return solution.getVars();
+   }
+
+   // called from the solver callback, the values are the objective followed by the solution of getVars
+   public void publish(double objVal, double[] solution) {
+      double[] values = new double[solution.length + 1];
+      values[0] = objVal;
+      System.arraycopy(solution, 0, values, 1, solution.length);
+      if (pending.getAndSet(values) == null)
+         executor.submit(this::snapshot);
+   }
+
+   private void snapshot() {
+      double[] values = pending.getAndSet(null);
+      if (values == null)
+         return;
+      try {
+         Results results = new Results(pm, sce);
+         for (String family : solution.getFamilies())
+            results.setVariable(family, solution.toArray(family, values, 1));
+         results.initializeResults(values[0], initialPlacement);
+         results.setComputationTime((double) (System.currentTimeMillis() - startTime) / 1000);
+         ResultsGUI.updateResults(results);
+         if ((boolean) pm.getGlobal(EXPORT_INCUMBENTS))
+            resultsManager.exportJsonObject(outputFileName + "_incumbent", results);
+         printLog(log, INFO, "incumbent published [" + Auxiliary.roundDouble(values[0], 4) + "]");
+      } catch (Exception e) {
+         printLog(log, WARNING, "error publishing incumbent: " + e.getMessage());
+      }
+   }
+
+   // waits for the last snapshot
+   public void close() {
+      executor.shutdown();
+      try {
+         executor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
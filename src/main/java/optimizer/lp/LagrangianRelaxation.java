@@ -0,0 +1,367 @@
+package optimizer.lp;
+
+import optimizer.Parameters;
+import optimizer.algorithms.NetworkManager;
+import optimizer.algorithms.VariablesAlg;
+import optimizer.elements.Function;
+import optimizer.elements.Service;
+import optimizer.gui.Scenario;
+import optimizer.results.Auxiliary;
+import optimizer.utils.IncidenceIndex;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static optimizer.Definitions.*;
+import static optimizer.results.Auxiliary.printLog;
+
+// Lagrangian relaxation of the link and server capacities for the MGR, REP and CLOUD objectives
+public class LagrangianRelaxation {
+
+   private static final Logger log = LoggerFactory.getLogger(LagrangianRelaxation.class);
+   private static final double INFINITY = Double.MAX_VALUE / 4;
+   private final Parameters pm;
+   private final String objFunc;
+   private final boolean[][][] initialPlacement;
+   // replications are always zero in the subproblems, so only these terms are weighted
+   private double migrationsWeight, cloudWeight;
+   // [s][p] -> indices of the links of path p
+   private int[][][] pathLinks;
+   // [s] -> traffic of the active demands of s
+   private double[] traffic;
+   // [s][v] -> load of function v on a server
+   private double[][] load;
+   private double[] lambda;
+   private double[] mu;
+   private double lowerBound = -INFINITY;
+   private double upperBound = INFINITY;
+   private VariablesAlg solution;
+
+   public LagrangianRelaxation(Parameters pm, String objFunc, boolean[][][] initialPlacement) {
+      this.pm = pm;
+      this.objFunc = objFunc;
+      this.initialPlacement = initialPlacement;
+   }
+
+   // returns false if the objective function is not supported or a service cannot be placed
+   public boolean run() {
+      if (!setWeights())
+         return false;
+      // the subproblems use the threads of the session, not the common pool shared with the solver
+      ForkJoinPool pool = new ForkJoinPool(SolverPool.threads(pm));
+      try {
+         return run(pool);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         return false;
+      } catch (ExecutionException e) {
+         printLog(log, WARNING, "lagrangian relaxation failed: " + e.getCause());
+         return false;
+      } finally {
+         pool.shutdown();
+      }
+   }
+
+   private boolean run(ForkJoinPool pool) throws InterruptedException, ExecutionException {
+      initialize();
+      int maxIterations = (int) pm.getGlobal(LAGRANGIAN_ITERATIONS);
+      double theta = 2.0;
+      int notImproved = 0;
+      Placement[] placements = new Placement[pm.getServices().size()];
+      for (int it = 0; it < maxIterations && theta > 1e-4; it++) {
+         pool.submit(() -> IntStream.range(0, pm.getServices().size()).parallel()
+               .forEach(s -> placements[s] = solveService(s, null, null))).get();
+         for (int s = 0; s < placements.length; s++)
+            if (placements[s] == null) {
+               printLog(log, WARNING, "no placement available for service [" + s + "]");
+               return false;
+            }
+         double value = 0;
+         for (Placement placement : placements)
+            value += placement.cost;
+         for (double l : lambda)
+            value -= l;
+         for (double m : mu)
+            value -= m;
+         if (value > lowerBound + 1e-9) {
+            lowerBound = value;
+            notImproved = 0;
+         } else if (++notImproved >= 5) {
+            theta /= 2;
+            notImproved = 0;
+         }
+         repair(placements);
+         if (upperBound - lowerBound <= 1e-6 * Math.max(1.0, Math.abs(upperBound)))
+            break;
+         // projected subgradient of the relaxed capacities
+         double[] gL = new double[lambda.length];
+         double[] gX = new double[mu.length];
+         Arrays.fill(gL, -1.0);
+         Arrays.fill(gX, -1.0);
+         for (int s = 0; s < placements.length; s++) {
+            for (int l : pathLinks[s][placements[s].path])
+               gL[l] += traffic[s] / (int) pm.getLinks().get(l).getAttribute(LINK_CAPACITY);
+            for (int v = 0; v < placements[s].servers.length; v++)
+               gX[placements[s].servers[v]] += load[s][v] / pm.getServers().get(placements[s].servers[v]).getCapacity();
+         }
+         double norm = 0;
+         for (int l = 0; l < gL.length; l++)
+            if (lambda[l] > 0 || gL[l] > 0)
+               norm += gL[l] * gL[l];
+         for (int x = 0; x < gX.length; x++)
+            if (mu[x] > 0 || gX[x] > 0)
+               norm += gX[x] * gX[x];
+         if (norm == 0)
+            break;
+         double target = upperBound < INFINITY ? upperBound : value + Math.abs(value) + 1.0;
+         double step = theta * (target - value) / norm;
+         for (int l = 0; l < lambda.length; l++)
+            lambda[l] = Math.max(0.0, lambda[l] + step * gL[l]);
+         for (int x = 0; x < mu.length; x++)
+            mu[x] = Math.max(0.0, mu[x] + step * gX[x]);
+      }
+      // the repaired placement only respects the capacities, the solver checks the rest when it is used as start
+      printLog(log, INFO, "lagrangian value [" + Auxiliary.roundDouble(lowerBound, 4) + "] repaired placement ["
+            + (solution != null ? Auxiliary.roundDouble(upperBound, 4) : "none")
+            + "] (delay and sync traffic not checked)");
+      return true;
+   }
+
+   // the value only bounds the model if its services have one path for all demands and one instance per function,
+   // placed in path order, as in the subproblems
+   public static boolean boundsModel(Scenario sce) {
+      for (String constraint : new String[] { SINGLE_PATH, RP1, RP2, PF1, PF2, FD1, FD2, FD3 })
+         if (!Boolean.TRUE.equals(sce.getConstraints().get(constraint)))
+            return false;
+      return true;
+   }
+
+   private boolean setWeights() {
+      switch (objFunc) {
+         case MGR:
+            migrationsWeight = 1.0;
+            cloudWeight = 0.001;
+            return true;
+         case REP:
+            migrationsWeight = 0.001;
+            cloudWeight = 0.001;
+            return true;
+         case CLOUD:
+            migrationsWeight = 0.001;
+            cloudWeight = 1.0;
+            return true;
+         case MGR_REP_CLOUD:
+            migrationsWeight = 1.0;
+            cloudWeight = 1.0;
+            return true;
+         default:
+            printLog(log, WARNING, "lagrangian relaxation not available for " + objFunc);
+            return false;
+      }
+   }
+
+   private void initialize() {
+      Map<Edge, Integer> linkIndices = new HashMap<>();
+      for (int l = 0; l < pm.getLinks().size(); l++)
+         linkIndices.put(pm.getLinks().get(l), l);
+      int numServices = pm.getServices().size();
+      pathLinks = new int[numServices][][];
+      traffic = new double[numServices];
+      load = new double[numServices][];
+      for (int s = 0; s < numServices; s++) {
+         Service service = pm.getServices().get(s);
+         List<Path> paths = service.getTrafficFlow().getPaths();
+         pathLinks[s] = new int[paths.size()][];
+         for (int p = 0; p < paths.size(); p++)
+            pathLinks[s][p] = paths.get(p).getEdgePath().stream().mapToInt(linkIndices::get).toArray();
+         for (int d = 0; d < service.getTrafficFlow().getDemands().size(); d++)
+            if (service.getTrafficFlow().getAux().get(d))
+               traffic[s] += service.getTrafficFlow().getDemands().get(d);
+         load[s] = new double[service.getFunctions().size()];
+         for (int v = 0; v < service.getFunctions().size(); v++) {
+            Function function = service.getFunctions().get(v);
+            double overhead = (double) function.getAttribute(FUNCTION_OVERHEAD_RATIO)
+                  * (int) function.getAttribute(FUNCTION_MAX_BW) * (int) function.getAttribute(FUNCTION_MAX_DEM)
+                  * (double) function.getAttribute(FUNCTION_LOAD_RATIO);
+            load[s][v] = traffic[s] * (double) function.getAttribute(FUNCTION_LOAD_RATIO) + overhead;
+         }
+      }
+      lambda = new double[pm.getLinks().size()];
+      mu = new double[pm.getServers().size()];
+   }
+
+   // objective terms of placing function v of service s on server x, without multipliers
+   private double placementCost(int s, int v, int x) {
+      double cost = 0;
+      // every initial instance on another server is migrated
+      if (initialPlacement != null)
+         for (int y = 0; y < pm.getServers().size(); y++)
+            if (initialPlacement[y][s][v] && y != x)
+               cost += migrationsWeight;
+      if ((int) pm.getServers().get(x).getParent().getAttribute(NODE_TYPE) == NODE_TYPE_CLOUD)
+         cost += cloudWeight;
+      return cost;
+   }
+
+   /*
+    * Cheapest path and placement of the service with the current multipliers.
+    * Links and servers without enough residual capacity are skipped when the
+    * residual utilizations are given.
+    */
+   private Placement solveService(int s, double[] residualL, double[] residualX) {
+      IncidenceIndex index = pm.getIncidenceIndex();
+      int numFunctions = load[s].length;
+      Placement best = null;
+      for (int p = 0; p < pathLinks[s].length; p++) {
+         double routing = 0;
+         for (int l : pathLinks[s][p]) {
+            double utilization = traffic[s] / (int) pm.getLinks().get(l).getAttribute(LINK_CAPACITY);
+            if (residualL != null && utilization > residualL[l] + 1e-9) {
+               routing = INFINITY;
+               break;
+            }
+            routing += lambda[l] * utilization;
+         }
+         if (routing >= INFINITY)
+            continue;
+         int numNodes = pm.getServices().get(s).getTrafficFlow().getPaths().get(p).getNodePath().size();
+         // cost[v][n] -> cheapest placement of functions 0..v with function v at node position n
+         double[][] cost = new double[numFunctions][numNodes];
+         int[][] server = new int[numFunctions][numNodes];
+         int[][] previous = new int[numFunctions][numNodes];
+         for (int v = 0; v < numFunctions; v++) {
+            double prefix = v == 0 ? 0 : INFINITY;
+            int prefixNode = -1;
+            for (int n = 0; n < numNodes; n++) {
+               if (v > 0 && cost[v - 1][n] < prefix) {
+                  prefix = cost[v - 1][n];
+                  prefixNode = n;
+               }
+               cost[v][n] = INFINITY;
+               server[v][n] = -1;
+               if (prefix >= INFINITY)
+                  continue;
+               for (int x : index.getServersOnPath(s, p, n)) {
+                  double utilization = load[s][v] / pm.getServers().get(x).getCapacity();
+                  if (residualX != null && utilization > residualX[x] + 1e-9)
+                     continue;
+                  double c = prefix + placementCost(s, v, x) + mu[x] * utilization;
+                  if (c < cost[v][n]) {
+                     cost[v][n] = c;
+                     server[v][n] = x;
+                     previous[v][n] = prefixNode;
+                  }
+               }
+            }
+         }
+         int last = -1;
+         for (int n = 0; n < numNodes; n++)
+            if (numFunctions > 0 && (last == -1 || cost[numFunctions - 1][n] < cost[numFunctions - 1][last]))
+               last = n;
+         double total = routing + (numFunctions > 0 ? cost[numFunctions - 1][last] : 0);
+         if (total >= INFINITY || (best != null && total >= best.cost))
+            continue;
+         int[] servers = new int[numFunctions];
+         for (int v = numFunctions - 1, n = last; v >= 0; n = previous[v][n], v--)
+            servers[v] = server[v][n];
+         best = new Placement(p, servers, total);
+      }
+      return best;
+   }
+
+   // places the services in decreasing traffic, moving the ones that do not fit
+   private void repair(Placement[] placements) {
+      double[] residualL = new double[pm.getLinks().size()];
+      double[] residualX = new double[pm.getServers().size()];
+      Arrays.fill(residualL, 1.0);
+      Arrays.fill(residualX, 1.0);
+      Integer[] order = new Integer[placements.length];
+      for (int s = 0; s < order.length; s++)
+         order[s] = s;
+      Arrays.sort(order, (a, b) -> Double.compare(traffic[b], traffic[a]));
+      Placement[] repaired = new Placement[placements.length];
+      for (int s : order) {
+         Placement placement = fits(s, placements[s], residualL, residualX) ? placements[s]
+               : solveService(s, residualL, residualX);
+         if (placement == null || !fits(s, placement, residualL, residualX))
+            return;
+         for (int l : pathLinks[s][placement.path])
+            residualL[l] -= traffic[s] / (int) pm.getLinks().get(l).getAttribute(LINK_CAPACITY);
+         for (int v = 0; v < placement.servers.length; v++)
+            residualX[placement.servers[v]] -= load[s][v] / pm.getServers().get(placement.servers[v]).getCapacity();
+         repaired[s] = placement;
+      }
+      double value = 0;
+      for (int s = 0; s < repaired.length; s++)
+         for (int v = 0; v < repaired[s].servers.length; v++)
+            value += placementCost(s, v, repaired[s].servers[v]);
+      if (value < upperBound) {
+         upperBound = value;
+         solution = toVariables(repaired);
+      }
+   }
+
+   private boolean fits(int s, Placement placement, double[] residualL, double[] residualX) {
+      if (placement == null)
+         return false;
+      for (int l : pathLinks[s][placement.path])
+         if (traffic[s] / (int) pm.getLinks().get(l).getAttribute(LINK_CAPACITY) > residualL[l] + 1e-9)
+            return false;
+      Map<Integer, Double> used = new HashMap<>();
+      for (int v = 0; v < placement.servers.length; v++) {
+         int x = placement.servers[v];
+         double utilization = used.getOrDefault(x, 0.0) + load[s][v] / pm.getServers().get(x).getCapacity();
+         if (utilization > residualX[x] + 1e-9)
+            return false;
+         used.put(x, utilization);
+      }
+      return true;
+   }
+
+   private VariablesAlg toVariables(Placement[] placements) {
+      VariablesAlg vars = new VariablesAlg(pm, (VariablesAlg) null, objFunc);
+      if (initialPlacement != null)
+         vars.fXSVinitial = initialPlacement;
+      NetworkManager networkManager = new NetworkManager(pm, vars);
+      for (int s = 0; s < placements.length; s++)
+         for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
+            if (pm.getServices().get(s).getTrafficFlow().getAux().get(d)) {
+               networkManager.addDemandToPath(s, placements[s].path, d);
+               for (int v = 0; v < placements[s].servers.length; v++)
+                  networkManager.addDemandToFunctionToServer(s, placements[s].servers[v], v, d);
+            }
+      vars.generateRestOfVariablesForResults();
+      return vars;
+   }
+
+   public double getLowerBound() {
+      return lowerBound;
+   }
+
+   public double getUpperBound() {
+      return upperBound;
+   }
+
+   // repaired placement with the best objective within the capacities, null if no placement could be repaired
+   public VariablesAlg getSolution() {
+      return solution;
+   }
+
+   private static class Placement {
+      private final int path;
+      private final int[] servers;
+      private final double cost;
+
+      Placement(int path, int[] servers, double cost) {
+         this.path = path;
+         this.servers = servers;
+         this.cost = cost;
+      }
+   }
+}
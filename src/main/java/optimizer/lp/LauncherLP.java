@@ -1,9 +1,11 @@
 package optimizer.lp;
 
+import com.gurobi.gurobi.GRBEnv;
 import com.gurobi.gurobi.GRBException;
 import com.gurobi.gurobi.GRBLinExpr;
 import com.gurobi.gurobi.GRBModel;
 import optimizer.Parameters;
+import optimizer.algorithms.VariablesAlg;
 import optimizer.gui.ResultsGUI;
 import optimizer.gui.Scenario;
 import optimizer.results.Auxiliary;
@@ -17,43 +19,205 @@ import static optimizer.results.Auxiliary.printLog;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 public class LauncherLP {
 
    private static final Logger log = LoggerFactory.getLogger(LauncherLP.class);
+   // models built with "retain_model", by the key of their inputs without the objective, least recently used first.
+   // A model is taken out of the map while a session uses it, so it is never solved by two sessions at once
+   private static final Map<String, ModelLP> retainedModels = new LinkedHashMap<>(16, 0.75f, true);
+   // retained models also returned to a caller that has not released them yet, they are not disposed on eviction
+   private static final Set<GRBModel> heldModels = Collections.newSetFromMap(new IdentityHashMap<>());
 
+   // the returned model belongs to the caller, which gives it back with release()
    public static GRBModel run(Parameters pm, Scenario sce, ResultsManager resultsManager, GRBModel initialModel,
          GRBModel initialSolution, String outputFileName, boolean exportMST) throws GRBException {
+      return run(pm, sce, resultsManager, initialModel, initialSolution, null, outputFileName, exportMST);
+   }
+
+   // same as above, using a heuristic solution in memory as start values
+   public static GRBModel run(Parameters pm, Scenario sce, ResultsManager resultsManager, GRBModel initialModel,
+         GRBModel initialSolution, VariablesAlg heuristicStart, String outputFileName, boolean exportMST)
+         throws GRBException {
       boolean[][][] initialPlacement = null;
       if (initialModel != null)
          initialPlacement = Auxiliary.fXSVvarsFromInitialModel(pm, initialModel);
-      ModelLP modelLP = new ModelLP(pm, initialSolution);
-      printLog(log, INFO, "setting variables");
-      VariablesLP variablesLP = new VariablesLP(pm, modelLP.getGrbModel(), sce, initialSolution);
-      modelLP.setVars(variablesLP);
-      printLog(log, INFO, "setting constraints");
-      new Constraints(pm, modelLP, sce, initialPlacement);
-      GRBLinExpr expr = generateExprForObjectiveFunction(pm, modelLP, sce.getObjFunc(), initialPlacement);
-      modelLP.setObjectiveFunction(expr, sce.isMaximization());
+      // the run holds a session of the pool, from building the model to exporting its results
+      GRBEnv env = SolverPool.acquire(pm);
+      ColumnGeneration columnGeneration = null;
+      try {
+         // the admissible paths are generated before building the final model, and the enumerated ones are restored
+         // after it for the next runs
+         if ((boolean) pm.getGlobal(COLUMN_GENERATION) && initialSolution == null) {
+            columnGeneration = new ColumnGeneration(pm, sce, initialPlacement, env);
+            columnGeneration.run();
+         }
+         return run(pm, sce, resultsManager, initialModel, initialPlacement, initialSolution, heuristicStart,
+               outputFileName, exportMST, env);
+      } finally {
+         if (columnGeneration != null)
+            columnGeneration.restorePaths();
+         SolverPool.release(env);
+      }
+   }
+
+   private static GRBModel run(Parameters pm, Scenario sce, ResultsManager resultsManager, GRBModel initialModel,
+         boolean[][][] initialPlacement, GRBModel initialSolution, VariablesAlg heuristicStart, String outputFileName,
+         boolean exportMST, GRBEnv env) throws GRBException {
+      // the lagrangian bound is reported with the results when it bounds the model, its repaired placement is used
+      // as start
+      Double lagrangianBound = null;
+      if ((boolean) pm.getGlobal(LAGRANGIAN)) {
+         LagrangianRelaxation lagrangian = new LagrangianRelaxation(pm, sce.getObjFunc(), initialPlacement);
+         if (lagrangian.run()) {
+            if (LagrangianRelaxation.boundsModel(sce))
+               lagrangianBound = lagrangian.getLowerBound();
+            else
+               printLog(log, INFO, "lagrangian bound not reported, the model allows several paths or instances");
+            if (heuristicStart == null)
+               heuristicStart = lagrangian.getSolution();
+         }
+      }
+      // a retained model with the same constraints only gets a new objective, starting from its last solution
+      String retainKey = null;
+      ModelLP modelLP = null;
+      if ((boolean) pm.getGlobal(RETAIN_MODEL) && initialSolution == null) {
+         // in a capacity sweep the server capacities are updated in the retained model
+         boolean sweep = (boolean) pm.getGlobal(CAPACITY_SWEEP);
+         retainKey = ModelCache.key(pm, sce, initialPlacement, VariablesLP.objectiveVariables(sce.getObjFunc()),
+               !sweep);
+         if (retainKey != null)
+            synchronized (retainedModels) {
+               modelLP = retainedModels.remove(retainKey);
+            }
+         if (modelLP != null) {
+            // the start values are taken before any change discards the solution
+            modelLP.keepSolutionAsStart();
+            if (sweep && !modelLP.updateServerCapacities(pm)) {
+               release(modelLP.getGrbModel());
+               modelLP = null;
+            }
+            else
+               printLog(log, INFO, "reusing retained model");
+         }
+      }
+      // a cached model replaces the model construction, it is not used together with an initial solution
+      String cacheKey = null;
+      GRBModel cachedModel = null;
+      if (modelLP == null) {
+         if ((boolean) pm.getGlobal(MODEL_CACHE) && initialSolution == null) {
+            cacheKey = ModelCache.key(pm, sce, initialPlacement);
+            cachedModel = ModelCache.load(cacheKey, env);
+            initialSolution = cachedModel;
+         }
+         modelLP = new ModelLP(pm, initialSolution, env);
+         printLog(log, INFO, "setting variables");
+         modelLP.setVars(new VariablesLP(pm, modelLP.getGrbModel(), sce, initialSolution));
+         if (cachedModel == null) {
+            printLog(log, INFO, "setting constraints");
+            new Constraints(pm, modelLP, sce, initialPlacement);
+         } else if ((boolean) pm.getGlobal(SYMMETRY_BREAKING))
+            // the cached model already breaks the symmetry, start values still follow it
+            modelLP.setSymmetry(new ServerSymmetry(pm, initialPlacement));
+         if (retainKey != null)
+            modelLP.recordServerCapacities();
+      }
+      VariablesLP variablesLP = modelLP.getVars();
+      Map<String, GRBLinExpr> objectives = null;
+      if ((boolean) pm.getGlobal(HIERARCHICAL_OBJECTIVES))
+         objectives = generateHierarchicalObjectives(modelLP, sce.getObjFunc(), initialPlacement);
+      if (objectives != null)
+         modelLP.setHierarchicalObjectives(objectives, (double) pm.getGlobal(HIERARCHICAL_REL_TOL),
+               sce.isMaximization());
+      else {
+         GRBLinExpr expr = generateExprForObjectiveFunction(pm, modelLP, sce.getObjFunc(), initialPlacement);
+         modelLP.setObjectiveFunction(expr, sce.isMaximization());
+      }
+      if (cacheKey != null && cachedModel == null) {
+         // the cached model keeps the readable names also in compact names mode
+         modelLP.getSink().resolveNames();
+         ModelCache.store(cacheKey, modelLP.getGrbModel());
+      }
+      if ((boolean) pm.getGlobal(EXPORT_LP))
+         modelLP.exportLP(resultsManager.getResultsFolder() + "/" + outputFileName);
+      if (heuristicStart != null)
+         MipStart.set(pm, modelLP.getGrbModel(), variablesLP, heuristicStart, modelLP.getSymmetry());
+      IncumbentPublisher publisher = null;
+      if ((boolean) pm.getGlobal(STREAM_INCUMBENTS))
+         publisher = new IncumbentPublisher(pm, sce, variablesLP, initialPlacement, resultsManager, outputFileName);
+      modelLP.setPublisher(publisher);
+      HeuristicRace race = null;
+      if ((boolean) pm.getGlobal(RACE_HEURISTICS)) {
+         race = new HeuristicRace(pm, sce.getObjFunc(), variablesLP, modelLP.getSymmetry(), initialModel);
+         race.start();
+      }
+      modelLP.setRace(race);
       printLog(log, INFO, "running model");
       LocalDateTime startTime = LocalDateTime.now();
       Double objVal = modelLP.run();
+      if (publisher != null)
+         publisher.close();
+      if (race != null)
+         race.stop();
       Duration durationComputation = Duration.between(startTime, LocalDateTime.now());
       Results results;
       if (objVal != null) {
          Auxiliary.printLog(log, INFO, "generating results");
          results = generateResults(pm, modelLP, sce, initialPlacement);
          results.setComputationTime((double) durationComputation.getSeconds());
+         // the constraints of a cached model are not built, so their statistics are not known
+         if (cachedModel == null)
+            results.setConstraintFamilies(modelLP.getFamilies().getStats());
+         results.setLagrangianBound(lagrangianBound);
+         results.setObjectiveValues(modelLP.getObjectiveValues());
          resultsManager.exportJsonObject(outputFileName, results);
          if (exportMST)
             resultsManager.exportModel(modelLP.getGrbModel(), outputFileName);
          ResultsGUI.updateResults(results);
       }
+      // evicted models still held by a caller are disposed when it releases them
+      if (retainKey != null)
+         synchronized (retainedModels) {
+            retainedModels.put(retainKey, modelLP);
+            heldModels.add(modelLP.getGrbModel());
+            while (retainedModels.size() > Math.max((int) pm.getGlobal(RETAINED_MODELS), 1))
+               release(retainedModels.remove(retainedModels.keySet().iterator().next()).getGrbModel());
+         }
       Auxiliary.printLog(log, INFO, "done");
       return modelLP.getGrbModel();
    }
 
-   private static GRBLinExpr generateExprForObjectiveFunction(Parameters pm, ModelLP modelLP, String objectiveFunction,
+   // gives back a model returned by run(), or drops a retained one that is not reused. The model is disposed once
+   // neither the caller nor the retained models use it
+   public static void release(GRBModel model) {
+      if (model == null)
+         return;
+      synchronized (retainedModels) {
+         if (heldModels.remove(model))
+            return;
+      }
+      model.dispose();
+   }
+
+   // disposes the retained models, which no run is using, and the pool once no solve is running, e.g. at the end of
+   // a scenario
+   public static void shutdown() {
+      synchronized (retainedModels) {
+         for (ModelLP modelLP : retainedModels.values())
+            modelLP.getGrbModel().dispose();
+         retainedModels.clear();
+         heldModels.clear();
+         if (!SolverPool.shutdown())
+            printLog(log, WARNING, "solver pool in use, environments not disposed");
+      }
+   }
+
+   static GRBLinExpr generateExprForObjectiveFunction(Parameters pm, ModelLP modelLP, String objectiveFunction,
          boolean[][][] initialPlacement) throws GRBException {
       GRBLinExpr expr = new GRBLinExpr();
       double serversWeight, linksWeight;
@@ -147,54 +311,84 @@ public class LauncherLP {
       return expr;
    }
 
+   // same terms as the weighted MGR, REP and CLOUD objectives, in decreasing priority, or null for other objectives
+   private static Map<String, GRBLinExpr> generateHierarchicalObjectives(ModelLP modelLP, String objectiveFunction,
+         boolean[][][] initialPlacement) {
+      Map<String, GRBLinExpr> exprs = new LinkedHashMap<>();
+      switch (objectiveFunction) {
+         case MGR:
+            exprs.put(MGR, modelLP.numMigrations(1.0, initialPlacement));
+            exprs.put(REP, modelLP.numReplications(1.0));
+            exprs.put(CLOUD, modelLP.numFunctionsInCloudExpr(1.0));
+            break;
+         case REP:
+            exprs.put(REP, modelLP.numReplications(1.0));
+            exprs.put(MGR, modelLP.numMigrations(1.0, initialPlacement));
+            exprs.put(CLOUD, modelLP.numFunctionsInCloudExpr(1.0));
+            break;
+         case CLOUD:
+            exprs.put(CLOUD, modelLP.numFunctionsInCloudExpr(1.0));
+            exprs.put(MGR, modelLP.numMigrations(1.0, initialPlacement));
+            exprs.put(REP, modelLP.numReplications(1.0));
+            break;
+         default:
+            return null;
+      }
+      return exprs;
+   }
+
    private static Results generateResults(Parameters pm, ModelLP optModelLP, Scenario sc,
          boolean[][][] initialPlacement) throws GRBException {
       Results results = new Results(pm, sc);
+      VariablesLP vars = optModelLP.getVars();
+      SolutionValues solution = new SolutionValues();
       // general variables
-      results.setVariable(zSP, Auxiliary.grbVarsToBooleans(optModelLP.getVars().zSP));
-      results.setVariable(zSPD, Auxiliary.grbVarsToBooleans(optModelLP.getVars().zSPD));
-      results.setVariable(fX, Auxiliary.grbVarsToBooleans(optModelLP.getVars().fX));
-      results.setVariable(fXSV, Auxiliary.grbVarsToBooleans(optModelLP.getVars().fXSV));
-      results.setVariable(fXSVD, Auxiliary.grbVarsToBooleans(optModelLP.getVars().fXSVD));
-      results.setVariable(uL, Auxiliary.grbVarsToDoubles(optModelLP.getVars().uL));
-      results.setVariable(uX, Auxiliary.grbVarsToDoubles(optModelLP.getVars().uX));
-   
+      solution.add(zSP, vars.zSP, true);
+      solution.add(zSPD, vars.zSPD, true);
+      solution.add(fX, vars.fX, true);
+      solution.add(fXSV, vars.fXSV, true);
+      solution.add(fXSVD, vars.fXSVD, true);
+      solution.add(uL, vars.uL, false);
+      solution.add(uX, vars.uX, false);
+
       // model specific variables
       if (sc.getObjFunc().equals(DIMEN_NUM_SERVERS))
-         results.setVariable(xN, Auxiliary.grbVarsToDoubles(optModelLP.getVars().xN));
+         solution.add(xN, vars.xN, false);
       if (sc.getObjFunc().equals(DIMEN_LINK_CAP))
-         results.setVariable(cLT, Auxiliary.grbVarsToBooleans(optModelLP.getVars().cLT));
-      if (sc.getObjFunc().equals(DIMEN_SERVER_CAP))
-         results.setVariable(cXT, Auxiliary.grbVarsToBooleans(optModelLP.getVars().cXT));
-      if (sc.getObjFunc().equals(DIMEN_SERVER_COSTS)) {
-         results.setVariable(cXT, Auxiliary.grbVarsToBooleans(optModelLP.getVars().cXT));
-      }
+         solution.add(cLT, vars.cLT, true);
+      if (sc.getObjFunc().equals(DIMEN_SERVER_CAP) || sc.getObjFunc().equals(DIMEN_SERVER_COSTS))
+         solution.add(cXT, vars.cXT, true);
 
       if (sc.getObjFunc().equals(OPEX_SERVERS) || sc.getObjFunc().equals(FUNCTIONS_CHARGES)
             || sc.getObjFunc().equals(QOS_PENALTIES) || sc.getObjFunc().equals(ALL_MONETARY_COSTS)) {
-         results.setVariable(oX, Auxiliary.grbVarsToDoubles(optModelLP.getVars().oX));
-         results.setVariable(oSV, Auxiliary.grbVarsToDoubles(optModelLP.getVars().oSV));
-         results.setVariable(qSDP, Auxiliary.grbVarsToDoubles(optModelLP.getVars().qSDP));
-         results.setVariable(ySDP, Auxiliary.grbVarsToDoubles(optModelLP.getVars().ySDP));
+         solution.add(oX, vars.oX, false);
+         solution.add(oSV, vars.oSV, false);
+         solution.add(qSDP, vars.qSDP, false);
+         solution.add(ySDP, vars.ySDP, false);
       }
 
       // traffic sync variables
       if (sc.getConstraints().get(SYNC_TRAFFIC)) {
-         results.setVariable(gSVXY, Auxiliary.grbVarsToBooleans(optModelLP.getVars().gSVXY));
-         results.setVariable(hSVP, Auxiliary.grbVarsToBooleans(optModelLP.getVars().hSVP));
+         solution.add(gSVXY, vars.gSVXY, true);
+         solution.add(hSVP, vars.hSVP, true);
       }
 
       // service delay variables
       if (sc.getConstraints().get(MAX_SERV_DELAY) || sc.getObjFunc().equals(OPEX_SERVERS)
             || sc.getObjFunc().equals(FUNCTIONS_CHARGES) || sc.getObjFunc().equals(QOS_PENALTIES)
             || sc.getObjFunc().equals(ALL_MONETARY_COSTS)) {
-         results.setVariable(dSVXD, Auxiliary.grbVarsToDoubles(optModelLP.getVars().dSVXD));
+         solution.add(dSVXD, vars.dSVXD, false);
       }
 
       // variable propagation delay
       if(sc.getConstraints().get(CONST_VLD)) {
-         results.setVariable(qSDPNM, Auxiliary.grbVarsToBooleans(optModelLP.getVars().qSDPNM));
+         solution.add(qSDPNM, vars.qSDPNM, true);
       }
+
+      // all the values are read at once
+      double[] values = solution.read(optModelLP.getGrbModel());
+      for (String family : solution.getFamilies())
+         results.setVariable(family, solution.toArray(family, values, 0));
       results.initializeResults(optModelLP.getObjVal(), initialPlacement);
       return results;
    }
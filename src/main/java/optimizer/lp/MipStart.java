@@ -0,0 +1,100 @@
+package optimizer.lp;
+
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBModel;
+import com.gurobi.gurobi.GRBVar;
+import optimizer.Parameters;
+import optimizer.algorithms.VariablesAlg;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+import static optimizer.Definitions.*;
+import static optimizer.results.Auxiliary.printLog;
+
+// Start values of the model taken from a heuristic solution in memory
+public class MipStart {
+
+   private static final Logger log = LoggerFactory.getLogger(MipStart.class);
+   private GRBVar[] vars = new GRBVar[1024];
+   private double[] values = new double[1024];
+   private int size;
+
+   public static void set(Parameters pm, GRBModel model, VariablesLP lp, VariablesAlg heu, ServerSymmetry symmetry)
+         throws GRBException {
+      MipStart start = collect(pm, lp, heu, symmetry);
+      model.set(GRB.DoubleAttr.Start, start.getVars(), start.getValues());
+      printLog(log, INFO, "start values set [" + start.size + " variables]");
+   }
+
+   public static MipStart collect(Parameters pm, VariablesLP lp, VariablesAlg heu, ServerSymmetry symmetry) {
+      MipStart start = new MipStart();
+      // heuristic server taking the place of every model server
+      int[] h = new int[pm.getServers().size()];
+      if (symmetry != null)
+         h = symmetry.canonicalOrder(heu.fX, heu.xu);
+      else
+         for (int x = 0; x < h.length; x++)
+            h[x] = x;
+      for (int s = 0; s < pm.getServices().size(); s++)
+         for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++) {
+            start.put(lp.zSP[s][p], heu.zSP[s][p]);
+            for (int d : lp.getDemands(s))
+               start.put(lp.zSPD[s][p][d], heu.zSPD[s][p][d]);
+         }
+      for (int x = 0; x < pm.getServers().size(); x++)
+         start.put(lp.fX[x], heu.fX[h[x]]);
+      for (int s = 0; s < pm.getServices().size(); s++)
+         for (int x : lp.getServers(s))
+            for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++) {
+               start.put(lp.fXSV[x][s][v], heu.fXSV[h[x]][s][v]);
+               for (int d : lp.getDemands(s))
+                  start.put(lp.fXSVD[x][s][v][d], heu.fXSVD[h[x]][s][v][d]);
+            }
+      if (heu.lu != null)
+         for (int l = 0; l < pm.getLinks().size(); l++)
+            start.put(lp.uL[l], heu.lu[l]);
+      if (heu.xu != null)
+         for (int x = 0; x < pm.getServers().size(); x++)
+            start.put(lp.uX[x], heu.xu[h[x]]);
+      // synchronization traffic variables, only when both sides consider it
+      if (lp.gSVXY != null && heu.gSVXY != null)
+         for (int s = 0; s < pm.getServices().size(); s++)
+            for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
+               for (int x = 0; x < pm.getServers().size(); x++)
+                  for (int y = 0; y < pm.getServers().size(); y++)
+                     start.put(lp.gSVXY[s][v][x][y], heu.gSVXY[s][v][h[x]][h[y]]);
+      if (lp.hSVP != null && heu.hSVP != null)
+         for (int s = 0; s < pm.getServices().size(); s++)
+            for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
+               for (int p = 0; p < pm.getPaths().size(); p++)
+                  start.put(lp.hSVP[s][v][p], heu.hSVP[s][v][p]);
+      return start;
+   }
+
+   public GRBVar[] getVars() {
+      return Arrays.copyOf(vars, size);
+   }
+
+   public double[] getValues() {
+      return Arrays.copyOf(values, size);
+   }
+
+   private void put(GRBVar var, boolean value) {
+      put(var, value ? 1.0 : 0.0);
+   }
+
+   private void put(GRBVar var, double value) {
+      if (var == null)
+         return;
+      if (size == vars.length) {
+         vars = Arrays.copyOf(vars, 2 * size);
+         values = Arrays.copyOf(values, 2 * size);
+      }
+      vars[size] = var;
+      values[size] = value;
+      size++;
+   }
+}
@@ -0,0 +1,153 @@
+package optimizer.lp;
+
+import com.gurobi.gurobi.GRBEnv;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBModel;
+import optimizer.Parameters;
+import optimizer.elements.Function;
+import optimizer.elements.Server;
+import optimizer.elements.Service;
+import optimizer.gui.Scenario;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static optimizer.Definitions.*;
+import static optimizer.results.Auxiliary.printLog;
+
+// Built models stored on disk, named by a hash of the inputs they are generated from
+public class ModelCache {
+
+   private static final Logger log = LoggerFactory.getLogger(ModelCache.class);
+   // to be increased when the generated model changes for the same inputs
+   private static final String VERSION = "1";
+   private static final String EXTENSION = ".mps.gz";
+   // global parameters of the solve or the outputs, which do not change the generated model
+   private static final Set<String> SOLVER_SETTINGS = new HashSet<>(Arrays.asList("gap", COMPUTE_ISS,
+         CONSTR_FLUSH_SIZE, PARALLEL_BUILD, BUILD_THREADS, COMPACT_NAMES, EXPORT_LP, MODEL_CACHE, RETAIN_MODEL,
+         RETAINED_MODELS, CAPACITY_SWEEP, LAGRANGIAN, LAGRANGIAN_ITERATIONS, STREAM_INCUMBENTS, EXPORT_INCUMBENTS,
+         RACE_HEURISTICS, RACE_RF_RUNS, RACE_THREADS, SOLVER_SESSIONS, SOLVER_THREADS));
+
+   public static String key(Parameters pm, Scenario sce, boolean[][][] initialPlacement) {
+      return key(pm, sce, initialPlacement, sce.getObjFunc() + sce.isMaximization());
+   }
+
+   // the objective is given separately, so models only differing in the objective can share a key
+   public static String key(Parameters pm, Scenario sce, boolean[][][] initialPlacement, String objective) {
+      return key(pm, sce, initialPlacement, objective, true);
+   }
+
+   // without the server capacities, for models whose capacities are updated in place
+   public static String key(Parameters pm, Scenario sce, boolean[][][] initialPlacement, String objective,
+         boolean serverCapacities) {
+      try {
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         update(digest, VERSION);
+         for (String file : pm.getInputFiles())
+            try {
+               digest.update(Files.readAllBytes(new File(file).toPath()));
+            } catch (IOException e) {
+               update(digest, file);
+            }
+         TreeMap<String, Object> global = new TreeMap<>(pm.getGlobal());
+         global.keySet().removeAll(SOLVER_SETTINGS);
+         if (!serverCapacities)
+            global.remove(SERVER_CAPACITY);
+         update(digest, global.toString());
+         for (Node node : pm.getNodes())
+            update(digest, node.getId() + node.getAttribute(NODE_TYPE));
+         for (Edge link : pm.getLinks())
+            update(digest, link.getId() + link.getAttribute(LINK_CAPACITY) + link.getAttribute(LINK_DELAY));
+         for (Server server : pm.getServers())
+            update(digest, server.getId() + (serverCapacities ? server.getCapacity() : ""));
+         for (Service service : pm.getServices()) {
+            update(digest, service.getId() + service.getMaxDelay() + service.getMaxPropagationDelay()
+                  + new TreeMap<>(service.getAttributes()));
+            for (Function function : service.getFunctions())
+               update(digest, function.getType() + new TreeMap<>(function.getAttributes()).toString());
+            for (Path path : service.getTrafficFlow().getPaths())
+               update(digest, path.getNodePath().toString());
+            update(digest, service.getTrafficFlow().getDemands().toString());
+            update(digest, service.getTrafficFlow().getAux().toString());
+         }
+         update(digest, objective + new TreeMap<>(sce.getConstraints()));
+         if (initialPlacement != null)
+            for (boolean[][] x : initialPlacement)
+               for (boolean[] s : x)
+                  for (boolean v : s)
+                     digest.update((byte) (v ? 1 : 0));
+         StringBuilder key = new StringBuilder();
+         for (byte b : digest.digest())
+            key.append(String.format("%02x", b));
+         return key.toString();
+      } catch (NoSuchAlgorithmException e) {
+         printLog(log, ERROR, e.getMessage());
+         return null;
+      }
+   }
+
+   private static void update(MessageDigest digest, String value) {
+      digest.update(value.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+   }
+
+   public static GRBModel load(String key, GRBEnv env) {
+      if (key == null)
+         return null;
+      File file = new File(getFolder(), key + EXTENSION);
+      if (!file.exists())
+         return null;
+      try {
+         GRBModel model = new GRBModel(env, file.getPath());
+         printLog(log, INFO, "model loaded from cache [" + key + "]");
+         return model;
+      } catch (GRBException e) {
+         printLog(log, WARNING, "error loading cached model: " + e.getMessage());
+         return null;
+      }
+   }
+
+   public static void store(String key, GRBModel model) {
+      if (key == null)
+         return;
+      File folder = getFolder();
+      if (!folder.exists())
+         folder.mkdirs();
+      // written to a temporary file first, so other runs never read a partial model
+      File tmp = new File(folder, key + "." + System.nanoTime() + EXTENSION);
+      try {
+         model.update();
+         model.write(tmp.getPath());
+         Files.move(tmp.toPath(), new File(folder, key + EXTENSION).toPath(), StandardCopyOption.ATOMIC_MOVE,
+               StandardCopyOption.REPLACE_EXISTING);
+         printLog(log, INFO, "model stored in cache [" + key + "]");
+      } catch (GRBException | IOException e) {
+         tmp.delete();
+         printLog(log, WARNING, "error storing model in cache: " + e.getMessage());
+      }
+   }
+
+   private static File getFolder() {
+      String path = ModelCache.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+      File f = new File(path);
+      if (!f.isDirectory())
+         path = f.getParent() + "/model-cache/";
+      else
+         path = path + "../model-cache/";
+      return new File(path.replaceAll("%20", " "));
+   }
+}
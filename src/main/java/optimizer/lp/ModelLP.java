@@ -11,23 +11,47 @@ import static optimizer.Definitions.*;
 import static optimizer.results.Auxiliary.printLog;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class ModelLP {
 
    private static final Logger log = LoggerFactory.getLogger(ModelLP.class);
    private GRBModel grbModel;
    private VariablesLP vars;
+   private ConstraintSink sink;
+   private ConstraintFamilies families;
    private Parameters pm;
    private double objVal;
-
-   public ModelLP(Parameters pm, GRBModel initialSolution) {
+   private boolean multiObjective;
+   private IncumbentPublisher publisher;
+   private HeuristicRace race;
+   private ServerSymmetry symmetry;
+   // utilization variables with piecewise-linear costs in the next objective, and in the current one
+   private final Map<GRBVar[], Double> pwlCosts = new LinkedHashMap<>();
+   private final ArrayList<GRBVar[]> pwlVars = new ArrayList<>();
+   // server capacities of the utilization constraints
+   private int[] serverCapacities;
+
+   public ModelLP(Parameters pm, GRBModel initialSolution, GRBEnv env) {
       this.pm = pm;
       try {
-         GRBEnv grbEnv = new GRBEnv();
          if (initialSolution == null)
-            grbModel = new GRBModel(grbEnv);
+            grbModel = new GRBModel(env);
          else
             grbModel = initialSolution;
+         sink = new ConstraintSink(grbModel, (int) pm.getGlobal(CONSTR_FLUSH_SIZE),
+               (boolean) pm.getGlobal(COMPACT_NAMES));
+         families = new ConstraintFamilies(sink);
+         if ((boolean) pm.getGlobal(PARALLEL_BUILD)) {
+            int threads = (int) pm.getGlobal(BUILD_THREADS);
+            sink.setParallelism(threads > 0 ? threads : SolverPool.threads(pm));
+         }
+         // the racing heuristics run on the cores of the session too
+         int threads = SolverPool.threads(pm);
+         if ((boolean) pm.getGlobal(RACE_HEURISTICS))
+            threads = Math.max(threads - (int) pm.getGlobal(RACE_THREADS), 1);
+         SolverPool.setThreads(grbModel, threads);
          Callback cb = new Callback();
          grbModel.setCallback(cb);
          grbModel.getEnv().set(GRB.DoubleParam.MIPGap, (double) pm.getGlobal().get("gap"));
@@ -37,10 +61,45 @@ public class ModelLP {
    }
 
    public void setObjectiveFunction(GRBLinExpr expr, boolean isMaximization) throws GRBException {
+      // removes the objectives of a previous hierarchical run on the same model
+      if (multiObjective) {
+         grbModel.set(GRB.IntAttr.NumObj, 0);
+         multiObjective = false;
+      }
+      // setting the linear coefficients removes the piecewise-linear costs of a previous run
+      for (GRBVar[] vars : pwlVars)
+         grbModel.set(GRB.DoubleAttr.Obj, vars, new double[vars.length]);
+      pwlVars.clear();
       if (!isMaximization)
          grbModel.setObjective(expr, GRB.MINIMIZE);
       else
          grbModel.setObjective(expr, GRB.MAXIMIZE);
+      for (Map.Entry<GRBVar[], Double> costs : pwlCosts.entrySet())
+         setPWLCosts(costs.getKey(), costs.getValue());
+      pwlCosts.clear();
+   }
+
+   // utilization is in [0, 1], so the cost functions are only needed in that range
+   private void setPWLCosts(GRBVar[] vars, double weight) throws GRBException {
+      double[][] breakpoints = CostFunctions.linear().breakpoints(0.0, 1.0);
+      double[] costs = new double[breakpoints[1].length];
+      for (int i = 0; i < costs.length; i++)
+         costs[i] = weight * breakpoints[1][i];
+      for (GRBVar var : vars)
+         grbModel.setPWLObj(var, breakpoints[0], costs);
+      pwlVars.add(vars);
+   }
+
+   // objectives are given in decreasing priority, each one can degrade the previous ones by the relative tolerance
+   public void setHierarchicalObjectives(Map<String, GRBLinExpr> exprs, double relTol, boolean isMaximization)
+         throws GRBException {
+      grbModel.set(GRB.IntAttr.ModelSense, isMaximization ? GRB.MAXIMIZE : GRB.MINIMIZE);
+      int index = 0;
+      for (Map.Entry<String, GRBLinExpr> entry : exprs.entrySet()) {
+         grbModel.setObjectiveN(entry.getValue(), index, exprs.size() - index, 1.0, 0.0, relTol, entry.getKey());
+         index++;
+      }
+      multiObjective = true;
    }
 
    public GRBLinExpr dimensioningNumServersExpr() {
@@ -91,7 +150,8 @@ public class ModelLP {
       for (int x = 0; x < pm.getServers().size(); x++)
             for (int s = 0; s < pm.getServices().size(); s++)
                for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
-                  expr.addTerm(weight, vars.fXSV[x][s][v]);
+                  if (vars.fXSV[x][s][v] != null)
+                     expr.addTerm(weight, vars.fXSV[x][s][v]);
       return expr;
    }
 
@@ -101,12 +161,17 @@ public class ModelLP {
          if ((int) pm.getServers().get(x).getParent().getAttribute(NODE_TYPE) == NODE_TYPE_CLOUD)
             for (int s = 0; s < pm.getServices().size(); s++)
                for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
-                  expr.addTerm(weight, vars.fXSV[x][s][v]);
+                  if (vars.fXSV[x][s][v] != null)
+                     expr.addTerm(weight, vars.fXSV[x][s][v]);
       return expr;
    }
 
    public GRBLinExpr linkCostsExpr(double weight) {
       GRBLinExpr expr = new GRBLinExpr();
+      if (vars.kL == null) { // pwl mode, the costs are set with the objective
+         pwlCosts.put(vars.uL, weight);
+         return expr;
+      }
       for (int l = 0; l < pm.getLinks().size(); l++)
          expr.addTerm(weight, vars.kL[l]);
       return expr;
@@ -114,6 +179,10 @@ public class ModelLP {
 
    public GRBLinExpr serverCostsExpr(double weight) {
       GRBLinExpr expr = new GRBLinExpr();
+      if (vars.kX == null) { // pwl mode, the costs are set with the objective
+         pwlCosts.put(vars.uX, weight);
+         return expr;
+      }
       for (int x = 0; x < pm.getServers().size(); x++)
          expr.addTerm(weight, vars.kX[x]);
       return expr;
@@ -157,7 +226,7 @@ public class ModelLP {
    public GRBLinExpr qosPenaltiesExpr() {
       GRBLinExpr expr = new GRBLinExpr();
       for (int s = 0; s < pm.getServices().size(); s++)
-         for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
+         for (int d : vars.getDemands(s))
             for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
                expr.addTerm(1.0, vars.qSDP[s][d][p]);
       return expr;
@@ -172,7 +241,8 @@ public class ModelLP {
                   for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++) {
                      if (initialPlacement[x][s][v]) {
                         expr.addConstant(weight);
-                        expr.addTerm(-weight, vars.fXSV[x][s][v]);
+                        if (vars.fXSV[x][s][v] != null)
+                           expr.addTerm(-weight, vars.fXSV[x][s][v]);
                      }
                   }
             }
@@ -187,7 +257,7 @@ public class ModelLP {
       for (int s = 0; s < pm.getServices().size(); s++)
          for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++) {
             expr.addConstant(-weight);
-            for (int x = 0; x < pm.getServers().size(); x++)
+            for (int x : vars.getServers(s))
                expr.addTerm(weight, vars.fXSV[x][s][v]);
          }
       return expr;
@@ -203,6 +273,7 @@ public class ModelLP {
          return objVal;
       } else if (grbModel.get(GRB.IntAttr.Status) == GRB.Status.INFEASIBLE && (Boolean)pm.getGlobal().get(COMPUTE_ISS)) {
          grbModel.computeIIS();
+         sink.resolveNames();
          printISS();
          printLog(log, ERROR, "model is infeasible");
       } else if (grbModel.get(GRB.IntAttr.Status) == GRB.Status.INF_OR_UNBD)
@@ -212,6 +283,70 @@ public class ModelLP {
       return null;
    }
 
+   public void recordServerCapacities() {
+      serverCapacities = new int[pm.getServers().size()];
+      for (int x = 0; x < serverCapacities.length; x++)
+         serverCapacities[x] = pm.getServers().get(x).getCapacity();
+   }
+
+   // scales the load terms of the server utilization constraints to the capacities of the given parameters, which
+   // may be read again after the model was built, false if the model has other constraints depending on them
+   public boolean updateServerCapacities(Parameters pm) throws GRBException {
+      if (serverCapacities == null || vars.kX != null || serverCapacities.length != pm.getServers().size())
+         return false;
+      // the servers of a symmetry group must keep the same capacity
+      if (symmetry != null)
+         for (int[] group : symmetry.getGroups())
+            for (int x : group)
+               if (pm.getServers().get(x).getCapacity() != pm.getServers().get(group[0]).getCapacity())
+                  return false;
+      ArrayList<GRBConstr> constrs = new ArrayList<>();
+      ArrayList<GRBVar> coeffVars = new ArrayList<>();
+      ArrayList<Double> coeffs = new ArrayList<>();
+      sink.resolveNames();
+      grbModel.update();
+      // the rows of all servers are collected first, so a failed update leaves the model and capacities unchanged
+      int[] capacities = new int[serverCapacities.length];
+      for (int x = 0; x < serverCapacities.length; x++) {
+         int capacity = pm.getServers().get(x).getCapacity();
+         capacities[x] = capacity;
+         if (capacity == serverCapacities[x])
+            continue;
+         GRBConstr constr = grbModel.getConstrByName(SpecificConstraints.uXName.format(new int[] { x }));
+         if (constr == null)
+            return false;
+         GRBLinExpr row = grbModel.getRow(constr);
+         for (int i = 0; i < row.size(); i++)
+            if (row.getVar(i) != vars.uX[x]) {
+               constrs.add(constr);
+               coeffVars.add(row.getVar(i));
+               coeffs.add(row.getCoeff(i) * serverCapacities[x] / capacity);
+            }
+      }
+      if (constrs.isEmpty())
+         return true;
+      double[] values = new double[coeffs.size()];
+      for (int i = 0; i < values.length; i++)
+         values[i] = coeffs.get(i);
+      grbModel.chgCoeffs(constrs.toArray(new GRBConstr[0]), coeffVars.toArray(new GRBVar[0]), values);
+      serverCapacities = capacities;
+      printLog(log, INFO, "server capacities updated [" + values.length + " coefficients]");
+      return true;
+   }
+
+   // the last solution is used as start values the next time the model is solved
+   public void keepSolutionAsStart() throws GRBException {
+      if (grbModel.get(GRB.IntAttr.SolCount) == 0)
+         return;
+      GRBVar[] vars = grbModel.getVars();
+      grbModel.set(GRB.DoubleAttr.Start, vars, grbModel.get(GRB.DoubleAttr.X, vars));
+   }
+
+   public void exportLP(String pathFile) throws GRBException {
+      sink.resolveNames();
+      grbModel.write(pathFile + ".lp");
+   }
+
    private void printISS() throws GRBException {
       printLog(log, INFO, "constraints in IIS: ");
       for (GRBConstr constr : grbModel.getConstrs())
@@ -227,6 +362,14 @@ public class ModelLP {
       return grbModel;
    }
 
+   public ConstraintSink getSink() {
+      return sink;
+   }
+
+   public ConstraintFamilies getFamilies() {
+      return families;
+   }
+
    public VariablesLP getVars() {
       return vars;
    }
@@ -235,10 +378,39 @@ public class ModelLP {
       this.vars = vars;
    }
 
+   public void setPublisher(IncumbentPublisher publisher) {
+      this.publisher = publisher;
+   }
+
+   public void setRace(HeuristicRace race) {
+      this.race = race;
+   }
+
+   public ServerSymmetry getSymmetry() {
+      return symmetry;
+   }
+
+   public void setSymmetry(ServerSymmetry symmetry) {
+      this.symmetry = symmetry;
+   }
+
    public double getObjVal() {
       return objVal;
    }
 
+   // value of every objective of a hierarchical run by name, in decreasing priority, null for a weighted run
+   public Map<String, Double> getObjectiveValues() throws GRBException {
+      if (!multiObjective)
+         return null;
+      Map<String, Double> values = new LinkedHashMap<>();
+      for (int i = 0; i < grbModel.get(GRB.IntAttr.NumObj); i++) {
+         grbModel.set(GRB.IntParam.ObjNumber, i);
+         values.put(grbModel.get(GRB.StringAttr.ObjNName),
+               Auxiliary.roundDouble(grbModel.get(GRB.DoubleAttr.ObjNVal), 6));
+      }
+      return values;
+   }
+
    private class Callback extends GRBCallback {
       private boolean isPresolving = false;
       private double gap = Double.MAX_VALUE;
@@ -254,6 +426,8 @@ public class ModelLP {
             } else if (where == GRB.CB_PRESOLVE && !isPresolving) {
                printLog(log, INFO, "presolving model");
                isPresolving = true;
+            } else if (where == GRB.CB_MIPSOL && publisher != null) {
+               publisher.publish(getDoubleInfo(GRB.CB_MIPSOL_OBJ), getSolution(publisher.getVars()));
             } else if (where == GRB.CB_MIPNODE) {
                double objbst = getDoubleInfo(GRB.CB_MIPNODE_OBJBST);
                double objbnd = getDoubleInfo(GRB.CB_MIPNODE_OBJBND);
@@ -269,6 +443,14 @@ public class ModelLP {
                      printLog(log, INFO, "[" + objbst + "-" + objbnd + "][" + showGap + "%]");
                   }
                }
+               // heuristic solutions found meanwhile are tried as new incumbents
+               MipStart solution = race != null ? race.poll() : null;
+               if (solution != null) {
+                  setSolution(solution.getVars(), solution.getValues());
+                  double value = useSolution();
+                  if (value < GRB.INFINITY)
+                     printLog(log, INFO, "heuristic solution injected [" + Auxiliary.roundDouble(value, 2) + "]");
+               }
             }
             if (Manager.isInterrupted()) {
                grbModel.terminate();
@@ -0,0 +1,49 @@
+package optimizer.lp;
+
+import optimizer.Parameters;
+import optimizer.elements.Server;
+
+import java.util.*;
+
+// Groups of interchangeable servers, with the same node, capacity and initial functions
+public class ServerSymmetry {
+
+   private final List<int[]> groups;
+
+   public ServerSymmetry(Parameters pm, boolean[][][] initialPlacement) {
+      Map<String, List<Integer>> members = new LinkedHashMap<>();
+      for (int x = 0; x < pm.getServers().size(); x++) {
+         Server server = pm.getServers().get(x);
+         String key = server.getParent().getId() + "/" + server.getCapacity();
+         if (initialPlacement != null)
+            key += "/" + Arrays.deepToString(initialPlacement[x]);
+         members.computeIfAbsent(key, k -> new ArrayList<>()).add(x);
+      }
+      groups = new ArrayList<>();
+      for (List<Integer> group : members.values())
+         if (group.size() > 1)
+            groups.add(group.stream().mapToInt(Integer::intValue).toArray());
+   }
+
+   // servers of every group, in index order
+   public List<int[]> getGroups() {
+      return groups;
+   }
+
+   // for every server, the server of a solution whose values it takes so that the groups are sorted
+   public int[] canonicalOrder(boolean[] used, double[] load) {
+      int[] order = new int[used.length];
+      for (int x = 0; x < order.length; x++)
+         order[x] = x;
+      for (int[] group : groups) {
+         Integer[] sorted = new Integer[group.length];
+         for (int i = 0; i < group.length; i++)
+            sorted[i] = group[i];
+         Arrays.sort(sorted, Comparator.comparing((Integer x) -> !used[x])
+               .thenComparing(x -> load != null ? -load[x] : 0.0));
+         for (int i = 0; i < group.length; i++)
+            order[group[i]] = sorted[i];
+      }
+      return order;
+   }
+}
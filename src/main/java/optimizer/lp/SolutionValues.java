@@ -0,0 +1,100 @@
+package optimizer.lp;
+
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBModel;
+import com.gurobi.gurobi.GRBVar;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Solution values of several variable families read with a single call
+public class SolutionValues {
+
+   private final Map<String, Object> families = new LinkedHashMap<>();
+   private final Map<String, Boolean> binary = new LinkedHashMap<>();
+   // position of the first variable of every family in the flat array
+   private final Map<String, Integer> offsets = new LinkedHashMap<>();
+   private final List<GRBVar> list = new ArrayList<>();
+   private GRBVar[] vars;
+
+   public void add(String name, Object variables, boolean isBinary) {
+      if (variables == null)
+         return;
+      families.put(name, variables);
+      binary.put(name, isBinary);
+      offsets.put(name, list.size());
+      flatten(variables, list);
+      vars = null;
+   }
+
+   public Iterable<String> getFamilies() {
+      return families.keySet();
+   }
+
+   public GRBVar[] getVars() {
+      if (vars == null)
+         vars = list.toArray(new GRBVar[0]);
+      return vars;
+   }
+
+   // solution values of getVars, with one call to the solver
+   public double[] read(GRBModel model) throws GRBException {
+      if (getVars().length == 0)
+         return new double[0];
+      return model.get(GRB.DoubleAttr.X, getVars());
+   }
+
+   // array with the shape of the family, where the values of getVars start at the given position. Results keeps the
+   // nested arrays it serializes, so only the reading of the values is flat
+   public Object toArray(String name, double[] values, int first) {
+      Object variables = families.get(name);
+      int dimensions = variables.getClass().getName().lastIndexOf('[') + 1;
+      int[] shape = new int[dimensions];
+      Object level = variables;
+      for (int i = 0; i < dimensions && level != null; i++) {
+         shape[i] = Array.getLength(level);
+         level = shape[i] > 0 ? Array.get(level, 0) : null;
+      }
+      boolean isBinary = binary.get(name);
+      Object array = Array.newInstance(isBinary ? boolean.class : double.class, shape);
+      fill(variables, array, values, new int[] { first + offsets.get(name) }, isBinary);
+      return array;
+   }
+
+   // same as rounding to one decimal and comparing with one
+   public static boolean isOne(double value) {
+      return value >= 0.95 && value < 1.05;
+   }
+
+   private static void flatten(Object variables, List<GRBVar> list) {
+      if (variables instanceof GRBVar[]) {
+         for (GRBVar var : (GRBVar[]) variables)
+            if (var != null)
+               list.add(var);
+      } else
+         for (Object element : (Object[]) variables)
+            flatten(element, list);
+   }
+
+   private static void fill(Object variables, Object array, double[] values, int[] next, boolean isBinary) {
+      if (variables instanceof GRBVar[]) {
+         GRBVar[] vars = (GRBVar[]) variables;
+         for (int i = 0; i < vars.length; i++)
+            if (vars[i] != null) {
+               double value = values[next[0]++];
+               if (isBinary)
+                  ((boolean[]) array)[i] = isOne(value);
+               else
+                  ((double[]) array)[i] = value;
+            }
+      } else {
+         Object[] elements = (Object[]) variables;
+         for (int i = 0; i < elements.length; i++)
+            fill(elements[i], Array.get(array, i), values, next, isBinary);
+      }
+   }
+}
@@ -0,0 +1,87 @@
+package optimizer.lp;
+
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBEnv;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBModel;
+import optimizer.Parameters;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import static optimizer.Definitions.*;
+
+// Gurobi environments shared by at most "solver_sessions" solves running at the same time, the models built in them
+// are disposed by their owners
+public class SolverPool {
+
+   private static final Deque<GRBEnv> idle = new ArrayDeque<>();
+   private static int active;
+
+   // waits for a free session and returns its environment, which has to be released after the solve
+   public static GRBEnv acquire(Parameters pm) throws GRBException {
+      boolean interrupted = false;
+      GRBEnv env;
+      synchronized (SolverPool.class) {
+         // the limit is read on every call, the same as the threads of a session
+         while (active >= sessions(pm))
+            try {
+               SolverPool.class.wait();
+            } catch (InterruptedException e) {
+               interrupted = true;
+            }
+         active++;
+         env = idle.poll();
+      }
+      if (interrupted)
+         Thread.currentThread().interrupt();
+      if (env != null)
+         return env;
+      try {
+         return new GRBEnv();
+      } catch (GRBException e) {
+         release(null);
+         throw e;
+      }
+   }
+
+   // the environment is kept for the next session until the shutdown
+   public static synchronized void release(GRBEnv env) {
+      if (env != null)
+         idle.push(env);
+      active--;
+      SolverPool.class.notifyAll();
+   }
+
+   private static int sessions(Parameters pm) {
+      return Math.max((int) pm.getGlobal(SOLVER_SESSIONS), 1);
+   }
+
+   // cores of one session, all the available ones if "solver_threads" is zero
+   public static int threads(Parameters pm) {
+      int budget = (int) pm.getGlobal(SOLVER_THREADS);
+      if (budget <= 0)
+         budget = Runtime.getRuntime().availableProcessors();
+      return Math.max(budget / sessions(pm), 1);
+   }
+
+   // the threads of the model are set in its own copy of the environment
+   public static void setThreads(GRBModel model, int threads) throws GRBException {
+      model.getEnv().set(GRB.IntParam.Threads, threads);
+   }
+
+   // disposes the environments of the pool, false if a session is still running
+   public static synchronized boolean shutdown() {
+      if (active > 0)
+         return false;
+      for (GRBEnv env : idle) {
+         try {
+            env.dispose();
+         } catch (GRBException e) {
+            e.printStackTrace();
+         }
+      }
+      idle.clear();
+      return true;
+   }
+}
@@ -1,21 +1,19 @@
 package optimizer.lp;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.gurobi.gurobi.*;
 import optimizer.Parameters;
 import optimizer.elements.*;
 import optimizer.gui.Scenario;
+import optimizer.lp.ConstraintSink.NameFormat;
+import optimizer.utils.IncidenceIndex;
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.Path;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashSet;
 
 import static optimizer.Definitions.*;
 import static optimizer.results.Auxiliary.*;
@@ -26,12 +24,50 @@ public class SpecificConstraints {
    private ModelLP modelLP;
    private VariablesLP vars;
    private Parameters pm;
+   private IncidenceIndex index;
+   private ConstraintSink sink;
+   private ConstraintFamilies families;
+   private DelayBounds delayBounds;
+   // delay constraints as indicator constraints on the routing variables instead of big-M
+   private boolean indicators;
+
+   // constraint names, only built when needed if compact names are used
+   private final NameFormat uLName = k -> uL + "[" + pm.getLinks().get(k[0]).getId() + "]";
+   static final NameFormat uXName = k -> uX + "[x] --> " + "[" + k[0] + "]";
+   private final NameFormat syncTrafficName = k -> SYNC_TRAFFIC + "[s][v][n][m] --> " + "[" + k[0] + "][" + k[1] + "]["
+         + k[2] + "][" + k[3] + "]";
+   private final NameFormat constVldName = k -> CONST_VLD + "[s][d][p][n][m] -->" + "[" + k[0] + "]" + "[" + k[1]
+         + "]" + "[" + k[2] + "]" + "[" + k[3] + "]" + "[" + k[4] + "]";
+   private final NameFormat maxServDelayName = k -> MAX_SERV_DELAY + "[s][p][d] --> " + "[" + k[0] + "][" + k[1]
+         + "][" + k[2] + "]";
+   private final NameFormat ySDP1Name = ySDPName("_1");
+   private final NameFormat ySDP2Name = ySDPName("_2");
+   private final NameFormat gSVXY1Name = gSVXYName("_1");
+   private final NameFormat gSVXY2Name = gSVXYName("_2");
+   private final NameFormat gSVXY3Name = gSVXYName("_3");
+   private final NameFormat gSVXY4Name = gSVXYName("_4");
+
+   private static NameFormat ySDPName(String suffix) {
+      return k -> ySDP + suffix + "[s][p][d] --> " + "[" + k[0] + "][" + k[1] + "][" + k[2] + "]";
+   }
+
+   private static NameFormat gSVXYName(String suffix) {
+      return k -> gSVXY + suffix + "[s][v][x][y] --> " + "[" + k[0] + "][" + k[1] + "][" + k[2] + "][" + k[3] + "]";
+   }
 
    public SpecificConstraints(Parameters pm, ModelLP modelLP, Scenario sc, boolean[][][] initialPlacement) {
       try {
          this.pm = pm;
          this.modelLP = modelLP;
          this.vars = modelLP.getVars();
+         this.index = pm.getIncidenceIndex();
+         this.sink = modelLP.getSink();
+         this.families = modelLP.getFamilies();
+
+         // big-M values of the delay constraints
+         indicators = (boolean) pm.getGlobal(DELAY_INDICATORS);
+         if (sc.getConstraints().get(MAX_SERV_DELAY) || vars.qSDP != null)
+            delayBounds = new DelayBounds(pm, initialPlacement, sc.getConstraints().get(FD1));
 
          // create link and server load expressions
          GRBLinExpr[] linkLoadExpr = createLinkLoadExpr();
@@ -39,50 +75,52 @@ public class SpecificConstraints {
 
          // dimensioning
          if (vars.xN != null)
-            dimensioning_num_servers(serverLoadExpr);
+            families.emit(DIMEN_NUM_SERVERS, () -> dimensioning_num_servers(serverLoadExpr));
          if (vars.cLT != null)
-            dimensioning_link_capacity(linkLoadExpr);
+            families.emit(DIMEN_LINK_CAP, () -> dimensioning_link_capacity(linkLoadExpr));
          if (vars.cXT != null)
-            dimensioning_server_capacity(serverLoadExpr);
+            families.emit(DIMEN_SERVER_CAP, () -> dimensioning_server_capacity(serverLoadExpr));
 
          // max utilization
          if (vars.uMax != null)
-            maxUtilization();
+            families.emit(uMax, this::maxUtilization);
 
          // monetary costs
          if (vars.oX != null)
-            opexServers();
+            families.emit(oX, this::opexServers);
          if (vars.oSV != null)
-            functionsCharges();
+            families.emit(oSV, this::functionsCharges);
          if (vars.qSDP != null)
-            qosPenalties(initialPlacement);
+            families.emit(qSDP, () -> qosPenalties(initialPlacement));
 
          // rest of specific constraints
          if (sc.getConstraints().get(SYNC_TRAFFIC))
-            syncTraffic(linkLoadExpr);
+            families.emit(SYNC_TRAFFIC, () -> syncTraffic(linkLoadExpr));
          if (sc.getConstraints().get(MAX_SERV_DELAY))
-            constraintMaxServiceDelay(initialPlacement);
+            families.emit(MAX_SERV_DELAY, () -> constraintMaxServiceDelay(initialPlacement));
          if (sc.getConstraints().get(CLOUD_ONLY))
-            useOnlyCloudServers();
+            families.emit(CLOUD_ONLY, this::useOnlyCloudServers);
          if (sc.getConstraints().get(EDGE_ONLY))
-            useOnlyEdgeServers();
+            families.emit(EDGE_ONLY, this::useOnlyEdgeServers);
          if (sc.getConstraints().get(SINGLE_PATH))
-            singlePath();
+            families.emit(SINGLE_PATH, this::singlePath);
          if (sc.getConstraints().get(SET_INIT_PLC))
-            setInitPlc(initialPlacement);
+            families.emit(SET_INIT_PLC, () -> setInitPlc(initialPlacement));
+         if ((boolean) pm.getGlobal(SYMMETRY_BREAKING))
+            families.emit(SYMMETRY_BREAKING, () -> symmetryBreaking(sc, initialPlacement));
          if (sc.getConstraints().get(FORCE_SRC))
-            forceSrc();
+            families.emit(FORCE_SRC, this::forceSrc);
          if (sc.getConstraints().get(FORCE_DST))
-            forceDst();
+            families.emit(FORCE_DST, this::forceDst);
          if (sc.getConstraints().get(CONST_REP))
-            constRep();
+            families.emit(CONST_REP, this::constRep);
          if (sc.getConstraints().containsKey(PATHS_SERVERS_CLOUD))
             if (sc.getConstraints().get(PATHS_SERVERS_CLOUD))
-               constraintPathsServersCloud();
+               families.emit(PATHS_SERVERS_CLOUD, this::constraintPathsServersCloud);
 
          // calculate variable propagation delay
          if (sc.getConstraints().get(CONST_VLD)){
-            constVariablePropagationDelay();
+            families.emit(CONST_VLD, this::constVariablePropagationDelay);
          }
 
          // create link and server utilization expressions
@@ -91,21 +129,24 @@ public class SpecificConstraints {
 
          // set linear utilization cost functions constraints
          if (vars.kL != null)
-            linearUtilCostFunctions(luExpr, vars.kL);
+            families.emit(kL, () -> linearUtilCostFunctions(luExpr, vars.kL));
          if (vars.kX != null)
-            linearUtilCostFunctions(xuExpr, vars.kX);
+            families.emit(kX, () -> linearUtilCostFunctions(xuExpr, vars.kX));
 
          // constraint link utilization
          if (!sc.getObjFunc().equals(DIMEN_LINK_CAP)) // except when dimensioning
-            for (int l = 0; l < pm.getLinks().size(); l++)
-               modelLP.getGrbModel().addConstr(luExpr[l], GRB.EQUAL, vars.uL[l],
-                     uL + "[" + pm.getLinks().get(l).getId() + "]");
+            families.emit(uL, () -> {
+               for (int l = 0; l < pm.getLinks().size(); l++)
+                  sink.add(luExpr[l], GRB.EQUAL, vars.uL[l], uLName, l);
+            });
 
          // constraint server utilization
          if (!sc.getObjFunc().equals(DIMEN_NUM_SERVERS) // except when dimensioning
                || !sc.getObjFunc().equals(DIMEN_SERVER_CAP) || !sc.getObjFunc().equals(DIMEN_SERVER_COSTS))
-            for (int x = 0; x < pm.getServers().size(); x++)
-               modelLP.getGrbModel().addConstr(xuExpr[x], GRB.EQUAL, vars.uX[x], uX + "[x] --> " + "[" + x + "]");
+            families.emit(uX, () -> {
+               for (int x = 0; x < pm.getServers().size(); x++)
+                  sink.add(xuExpr[x], GRB.EQUAL, vars.uX[x], uXName, x);
+            });
 
       } catch (Exception e) {
          e.printStackTrace();
@@ -118,7 +159,7 @@ public class SpecificConstraints {
          expr1.addTerm((int) pm.getGlobal(SERVER_DIMENSIONING_CAPACITY), vars.xN[n]);
          GRBLinExpr expr2 = new GRBLinExpr();
          expr2.multAdd((double) pm.getGlobal(OVERPROVISIONING_NUM_SERVERS), serverLoadExpr[n]);
-         modelLP.getGrbModel().addConstr(expr2, GRB.LESS_EQUAL, expr1, DIMEN_NUM_SERVERS);
+         sink.add(expr2, GRB.LESS_EQUAL, expr1, DIMEN_NUM_SERVERS);
       }
    }
 
@@ -130,14 +171,16 @@ public class SpecificConstraints {
          GRBLinExpr expr2 = new GRBLinExpr();
          for (int t = 0; t < types.size(); t++)
             expr2.addTerm((double) pm.getGlobal(OVERPROVISIONING_LINK_CAPACITY) * types.get(t), vars.cLT[l][t]);
-         modelLP.getGrbModel().addConstr(expr1, GRB.LESS_EQUAL, expr2, DIMEN_LINK_CAP);
+         sink.add(expr1, GRB.LESS_EQUAL, expr2, DIMEN_LINK_CAP);
       }
       for (int l = 0; l < pm.getLinks().size(); l++) {
          GRBLinExpr expr1 = new GRBLinExpr();
          for (int t = 0; t < types.size(); t++)
             expr1.addTerm(1.0, vars.cLT[l][t]);
-         modelLP.getGrbModel().addConstr(expr1, GRB.EQUAL, 1.0, DIMEN_LINK_CAP);
+         sink.add(expr1, GRB.EQUAL, 1.0, DIMEN_LINK_CAP);
       }
+      if ((boolean) pm.getGlobal(SOS_CAPACITY_TYPES))
+         capacityTypeSets(vars.cLT, types);
    }
 
    private void dimensioning_server_capacity(GRBLinExpr[] serverLoadExpr) throws GRBException {
@@ -148,14 +191,26 @@ public class SpecificConstraints {
          GRBLinExpr expr2 = new GRBLinExpr();
          for (int t = 0; t < types.size(); t++)
             expr2.addTerm((double) pm.getGlobal(OVERPROVISIONING_SERVER_CAPACITY) * types.get(t), vars.cXT[x][t]);
-         modelLP.getGrbModel().addConstr(expr1, GRB.LESS_EQUAL, expr2, DIMEN_SERVER_CAP);
+         sink.add(expr1, GRB.LESS_EQUAL, expr2, DIMEN_SERVER_CAP);
       }
       for (int x = 0; x < pm.getServers().size(); x++) {
          GRBLinExpr expr1 = new GRBLinExpr();
          for (int t = 0; t < types.size(); t++)
             expr1.addTerm(1.0, vars.cXT[x][t]);
-         modelLP.getGrbModel().addConstr(expr1, GRB.EQUAL, 1.0, DIMEN_SERVER_CAP);
+         sink.add(expr1, GRB.EQUAL, 1.0, DIMEN_SERVER_CAP);
       }
+      if ((boolean) pm.getGlobal(SOS_CAPACITY_TYPES))
+         capacityTypeSets(vars.cXT, types);
+   }
+
+   // one capacity type per link or server as SOS1 sets, ordered by capacity
+   private void capacityTypeSets(GRBVar[][] typeVars, ArrayList<Integer> types) throws GRBException {
+      double[] weights = new double[types.size()];
+      boolean unique = new HashSet<>(types).size() == types.size();
+      for (int t = 0; t < types.size(); t++)
+         weights[t] = unique ? types.get(t) : t + 1; // the weights of a set must be different
+      for (GRBVar[] set : typeVars)
+         modelLP.getGrbModel().addSOS(set, weights, GRB.SOS_TYPE1);
    }
 
    private GRBLinExpr[] createLinkLoadExpr() {
@@ -166,10 +221,9 @@ public class SpecificConstraints {
             for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++) {
                if (!pm.getServices().get(s).getTrafficFlow().getPaths().get(p).contains(pm.getLinks().get(l)))
                   continue;
-               for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-                  if (pm.getServices().get(s).getTrafficFlow().getAux().get(d))
-                     expr.addTerm((double) pm.getServices().get(s).getTrafficFlow().getDemands().get(d),
-                           vars.zSPD[s][p][d]);
+               for (int d : vars.getDemands(s))
+                  expr.addTerm((double) pm.getServices().get(s).getTrafficFlow().getDemands().get(d),
+                        vars.zSPD[s][p][d]);
             }
          expressions[l] = expr;
       }
@@ -182,11 +236,12 @@ public class SpecificConstraints {
          GRBLinExpr expr = new GRBLinExpr();
          for (int s = 0; s < pm.getServices().size(); s++)
             for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++) {
+               if (vars.fXSV[x][s][v] == null)
+                  continue;
                Function function = pm.getServices().get(s).getFunctions().get(v);
-               for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-                  if (pm.getServices().get(s).getTrafficFlow().getAux().get(d))
-                     expr.addTerm((pm.getServices().get(s).getTrafficFlow().getDemands().get(d)
-                           * (double) function.getAttribute(FUNCTION_LOAD_RATIO)), vars.fXSVD[x][s][v][d]);
+               for (int d : vars.getDemands(s))
+                  expr.addTerm((pm.getServices().get(s).getTrafficFlow().getDemands().get(d)
+                        * (double) function.getAttribute(FUNCTION_LOAD_RATIO)), vars.fXSVD[x][s][v][d]);
                double overhead = (double) function.getAttribute(FUNCTION_OVERHEAD_RATIO)
                      * (int) function.getAttribute(FUNCTION_MAX_BW) * (int) function.getAttribute(FUNCTION_MAX_DEM)
                      * (double) function.getAttribute(FUNCTION_LOAD_RATIO);
@@ -218,21 +273,21 @@ public class SpecificConstraints {
    }
 
    private void linearUtilCostFunctions(GRBLinExpr[] exprs, GRBVar[] grbVar) throws GRBException {
-      CostFunctions costFunctions = getLinearCostFunctions();
+      CostFunctions costFunctions = CostFunctions.linear();
       for (int e = 0; e < exprs.length; e++)
          for (int c = 0; c < costFunctions.getValues().size(); c++) {
             GRBLinExpr expr = new GRBLinExpr();
             expr.multAdd(costFunctions.getValues().get(c)[0], exprs[e]);
             expr.addConstant(costFunctions.getValues().get(c)[1]);
-            modelLP.getGrbModel().addConstr(expr, GRB.LESS_EQUAL, grbVar[e], UTIL_COSTS);
+            sink.add(expr, GRB.LESS_EQUAL, grbVar[e], UTIL_COSTS);
          }
    }
 
    private void maxUtilization() throws GRBException {
       for (int x = 0; x < pm.getServers().size(); x++)
-         modelLP.getGrbModel().addConstr(vars.uX[x], GRB.LESS_EQUAL, vars.uMax, uMax);
+         sink.add(vars.uX[x], GRB.LESS_EQUAL, vars.uMax, uMax);
       for (int l = 0; l < pm.getLinks().size(); l++)
-         modelLP.getGrbModel().addConstr(vars.uL[l], GRB.LESS_EQUAL, vars.uMax, uMax);
+         sink.add(vars.uL[l], GRB.LESS_EQUAL, vars.uMax, uMax);
    }
 
    private void opexServers() throws GRBException {
@@ -241,9 +296,9 @@ public class SpecificConstraints {
             GRBLinExpr expr = new GRBLinExpr();
             expr.addTerm((double) pm.getGlobal().get(SERVER_IDLE_ENERGY_COST), vars.fX[x]);
             expr.addTerm((double) pm.getGlobal().get(SERVER_UTIL_ENERGY_COST), vars.uX[x]);
-            modelLP.getGrbModel().addConstr(expr, GRB.EQUAL, vars.oX[x], oX);
+            sink.add(expr, GRB.EQUAL, vars.oX[x], oX);
          } else {
-            modelLP.getGrbModel().addConstr(vars.oX[x], GRB.EQUAL, 0, oX);
+            sink.add(vars.oX[x], GRB.EQUAL, 0, oX);
          }
    }
 
@@ -251,11 +306,12 @@ public class SpecificConstraints {
       for (int s = 0; s < pm.getServices().size(); s++)
          for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
             for (int x = 0; x < pm.getServers().size(); x++)
-               if ((int) pm.getServers().get(x).getParent().getAttribute(NODE_TYPE) == NODE_TYPE_CLOUD) {
+               if ((int) pm.getServers().get(x).getParent().getAttribute(NODE_TYPE) == NODE_TYPE_CLOUD
+                     && vars.fXSV[x][s][v] != null) {
                   GRBLinExpr expr = new GRBLinExpr();
                   expr.addTerm((double) pm.getServices().get(s).getFunctions().get(v).getAttribute(FUNCTION_CHARGES),
                         vars.fXSV[x][s][v]); // in $/h
-                  modelLP.getGrbModel().addConstr(vars.oSV[s][v], GRB.EQUAL, expr, oSV); // to be updated from the paper
+                  sink.add(vars.oSV[s][v], GRB.EQUAL, expr, oSV); // to be updated from the paper
                                                                                          // (not affecting to the
                                                                                          // results because only one
                                                                                          // server in the cloud so no
@@ -265,96 +321,91 @@ public class SpecificConstraints {
    }
 
    private void qosPenalties(boolean[][][] initialPlacement) throws GRBException {
+      // linearization of delay and routing variables, generated once for all services
+      families.require(ySDP, () -> linearizationOfzSPDandDelay(initialPlacement));
       for (int s = 0; s < pm.getServices().size(); s++) {
          Service service = pm.getServices().get(s);
-         double bigM = 0;
-         bigM += getMaxPathDelay(service.getTrafficFlow().getPaths()); // in ms
-         bigM += getMaxProcessingDelay(service.getFunctions()) * service.getFunctions().size(); // in ms
-         bigM += getMaxServiceDowntime(service); // in ms
-
          for (int p = 0; p < service.getTrafficFlow().getPaths().size(); p++)
-            for (int d = 0; d < service.getTrafficFlow().getDemands().size(); d++)
-               if (service.getTrafficFlow().getAux().get(d)) {
-
-                  // linearization of delay and routing variables
-                  linearizationOfzSPDandDelay(initialPlacement);
-
-                  // delay / max_delay
-                  double maxDelay = 0;
-                  maxDelay += service.getMaxPropagationDelay();
-                  for (int v = 0; v < service.getFunctions().size(); v++)
-                     maxDelay += (double) service.getFunctions().get(v).getAttribute(FUNCTION_MAX_DELAY);
-
-                  GRBLinExpr expr = new GRBLinExpr();
-                  expr.addTerm(1.0 / maxDelay, vars.ySDP[s][d][p]); // ratio
-                  expr.addTerm(-1.0, vars.zSPD[s][p][d]);
-
-                  // qos_penalty value
-                  double profit = 0;
-                  for (int v = 0; v < service.getFunctions().size(); v++)
-                     profit += (double) service.getFunctions().get(v).getAttribute(FUNCTION_CHARGES);
-                  double qosPenalty = (double) pm.getGlobal().get(QOS_PENALTY_RATIO) * profit; // in $/h
-
-                  GRBLinExpr expr2 = new GRBLinExpr();
-                  expr2.multAdd(qosPenalty, expr); // in $/h
-                  modelLP.getGrbModel().addConstr(expr2, GRB.LESS_EQUAL, vars.qSDP[s][d][p], qSDP);
-                  if (maxDelay > bigM)
-                     printLog(log, WARNING, "max. service delay is not bounding");
-                  double upperBound = ((bigM / maxDelay) - 1) * qosPenalty;
-                  modelLP.getGrbModel().addConstr(vars.qSDP[s][d][p], GRB.LESS_EQUAL, upperBound, qSDP);
-               } else {
-                  modelLP.getGrbModel().addConstr(vars.qSDP[s][d][p], GRB.EQUAL, 0.0, qSDP);
-                  modelLP.getGrbModel().addConstr(vars.ySDP[s][d][p], GRB.EQUAL, 0.0, ySDP);
-               }
+            for (int d : vars.getDemands(s)) {
+               double bigM = delayBounds.get(s, p); // in ms
+               // delay / max_delay
+               double maxDelay = 0;
+               maxDelay += service.getMaxPropagationDelay();
+               for (int v = 0; v < service.getFunctions().size(); v++)
+                  maxDelay += (double) service.getFunctions().get(v).getAttribute(FUNCTION_MAX_DELAY);
+
+               GRBLinExpr expr = new GRBLinExpr();
+               expr.addTerm(1.0 / maxDelay, vars.ySDP[s][d][p]); // ratio
+               expr.addTerm(-1.0, vars.zSPD[s][p][d]);
+
+               // qos_penalty value
+               double profit = 0;
+               for (int v = 0; v < service.getFunctions().size(); v++)
+                  profit += (double) service.getFunctions().get(v).getAttribute(FUNCTION_CHARGES);
+               double qosPenalty = (double) pm.getGlobal().get(QOS_PENALTY_RATIO) * profit; // in $/h
+
+               GRBLinExpr expr2 = new GRBLinExpr();
+               expr2.multAdd(qosPenalty, expr); // in $/h
+               sink.add(expr2, GRB.LESS_EQUAL, vars.qSDP[s][d][p], qSDP);
+               // the delay of the path never exceeds the max. delay, so there is no penalty
+               double upperBound = Math.max(((bigM / maxDelay) - 1) * qosPenalty, 0.0);
+               sink.add(vars.qSDP[s][d][p], GRB.LESS_EQUAL, upperBound, qSDP);
+            }
       }
    }
 
    private void linearizationOfzSPDandDelay(boolean[][][] initialPlacement) throws GRBException {
-      for (int s = 0; s < pm.getServices().size(); s++) {
+      families.require(FUNCTION_PROCESS_TRAFFIC_DELAY, () -> sink.addPerService(pm.getServices().size(),
+            this::processingDelay));
+      sink.addPerService(pm.getServices().size(), (out, s) -> {
          Service service = pm.getServices().get(s);
-         double bigM = 0;
-         bigM += getMaxPathDelay(service.getTrafficFlow().getPaths()); // in ms
-         bigM += getMaxProcessingDelay(service.getFunctions()) * service.getFunctions().size(); // in ms
-         bigM += getMaxServiceDowntime(service); // in ms
-
          for (int p = 0; p < service.getTrafficFlow().getPaths().size(); p++)
-            for (int d = 0; d < service.getTrafficFlow().getDemands().size(); d++)
-               if (service.getTrafficFlow().getAux().get(d)) {
-                  GRBLinExpr serviceDelayExpr = serviceDelayExpr(s, p, d, initialPlacement); // in ms
-
-                  // linearization of delay and routing variables
-                  modelLP.getGrbModel().addConstr(vars.ySDP[s][d][p], GRB.LESS_EQUAL, serviceDelayExpr, ySDP);
-                  GRBLinExpr expr = new GRBLinExpr();
-                  expr.addTerm(bigM, vars.zSPD[s][p][d]);
-                  modelLP.getGrbModel().addConstr(vars.ySDP[s][d][p], GRB.LESS_EQUAL, expr, ySDP);
-                  expr = new GRBLinExpr();
-                  expr.addTerm(bigM, vars.zSPD[s][p][d]);
-                  expr.addConstant(-bigM);
-                  expr.add(serviceDelayExpr);
-                  modelLP.getGrbModel().addConstr(vars.ySDP[s][d][p], GRB.GREATER_EQUAL, expr, ySDP);
+            for (int d : vars.getDemands(s)) {
+               double bigM = delayBounds.get(s, p); // in ms
+               GRBLinExpr serviceDelayExpr = serviceDelayExpr(s, p, d, initialPlacement); // in ms
+
+               // linearization of delay and routing variables
+               out.add(vars.ySDP[s][d][p], GRB.LESS_EQUAL, serviceDelayExpr, ySDP);
+               if (indicators) {
+                  out.addIndicator(vars.zSPD[s][p][d], 0, vars.ySDP[s][d][p], GRB.LESS_EQUAL, 0.0, ySDP1Name, s, p,
+                        d);
+                  out.addIndicator(vars.zSPD[s][p][d], 1, serviceDelayExpr, GRB.LESS_EQUAL, vars.ySDP[s][d][p],
+                        ySDP2Name, s, p, d);
+                  continue;
                }
-      }
+               GRBLinExpr expr = new GRBLinExpr();
+               expr.addTerm(bigM, vars.zSPD[s][p][d]);
+               out.add(vars.ySDP[s][d][p], GRB.LESS_EQUAL, expr, ySDP);
+               expr = new GRBLinExpr();
+               expr.addTerm(bigM, vars.zSPD[s][p][d]);
+               expr.addConstant(-bigM);
+               expr.add(serviceDelayExpr);
+               out.add(vars.ySDP[s][d][p], GRB.GREATER_EQUAL, expr, ySDP);
+            }
+      });
    }
 
    private void constraintMaxServiceDelay(boolean[][][] initialPlacement) throws GRBException {
-      for (int s = 0; s < pm.getServices().size(); s++) {
+      families.require(FUNCTION_PROCESS_TRAFFIC_DELAY, () -> sink.addPerService(pm.getServices().size(),
+            this::processingDelay));
+      sink.addPerService(pm.getServices().size(), (out, s) -> {
          Service service = pm.getServices().get(s);
-         double bigM = 0;
-         bigM += getMaxPathDelay(service.getTrafficFlow().getPaths()); // in ms
-         bigM += getMaxProcessingDelay(service.getFunctions()) * service.getFunctions().size(); // in ms
-         bigM += getMaxServiceDowntime(service); // in ms
-
          for (int p = 0; p < service.getTrafficFlow().getPaths().size(); p++)
-            for (int d = 0; d < service.getTrafficFlow().getDemands().size(); d++)
-               if (service.getTrafficFlow().getAux().get(d)) {
-                  GRBLinExpr serviceDelayExpr = serviceDelayExpr(s, p, d, initialPlacement); // in ms
-                  GRBLinExpr pathDelayExpr = new GRBLinExpr();
-                  pathDelayExpr.addTerm(pm.getServices().get(s).getMaxDelay(), vars.zSPD[s][p][d]);
-                  pathDelayExpr.addConstant(bigM);
-                  pathDelayExpr.addTerm(-bigM, vars.zSPD[s][p][d]);
-                  modelLP.getGrbModel().addConstr(serviceDelayExpr, GRB.LESS_EQUAL, pathDelayExpr, MAX_SERV_DELAY);
+            for (int d : vars.getDemands(s)) {
+               double bigM = delayBounds.get(s, p); // in ms
+               GRBLinExpr serviceDelayExpr = serviceDelayExpr(s, p, d, initialPlacement); // in ms
+               if (indicators) {
+                  out.addIndicator(vars.zSPD[s][p][d], 1, serviceDelayExpr, GRB.LESS_EQUAL, service.getMaxDelay(),
+                        maxServDelayName, s, p, d);
+                  continue;
                }
-      }
+               GRBLinExpr pathDelayExpr = new GRBLinExpr();
+               pathDelayExpr.addTerm(pm.getServices().get(s).getMaxDelay(), vars.zSPD[s][p][d]);
+               pathDelayExpr.addConstant(bigM);
+               pathDelayExpr.addTerm(-bigM, vars.zSPD[s][p][d]);
+               out.add(serviceDelayExpr, GRB.LESS_EQUAL, pathDelayExpr, MAX_SERV_DELAY);
+            }
+      });
    }
 
    private GRBLinExpr serviceDelayExpr(int s, int p, int d, boolean[][][] initialPlacement) throws GRBException {
@@ -367,50 +418,54 @@ public class SpecificConstraints {
       return serviceDelayExpr;
    }
 
-   private GRBLinExpr processingDelayExpr(int s, int p, int d) throws GRBException {
+   // defines the processing delay dSVXD of every function placed on a server of the admissible paths
+   private void processingDelay(ConstraintSink out, int s) throws GRBException {
+      Service service = pm.getServices().get(s);
+      for (int x : index.getAdmissibleServers(s))
+         for (int v = 0; v < service.getFunctions().size(); v++) {
+            Function function = service.getFunctions().get(v);
+            double ratio = (double) function.getAttribute(FUNCTION_LOAD_RATIO)
+                  * (double) function.getAttribute(FUNCTION_PROCESS_TRAFFIC_DELAY)
+                  / ((int) function.getAttribute(FUNCTION_MAX_DEM) * (int) function.getAttribute(FUNCTION_MAX_BW)
+                        * (double) function.getAttribute(FUNCTION_LOAD_RATIO));
+            GRBLinExpr loadDelayExpr = new GRBLinExpr();
+            for (int d1 : vars.getDemands(s))
+               loadDelayExpr.addTerm(ratio * service.getTrafficFlow().getDemands().get(d1),
+                     vars.fXSVD[x][s][v][d1]);
+            GRBLinExpr processDelayExpr1 = new GRBLinExpr();
+            processDelayExpr1.addTerm((double) function.getAttribute(FUNCTION_MIN_PROCESS_DELAY),
+                  vars.fXSV[x][s][v]);
+            GRBLinExpr processDelayExpr2 = new GRBLinExpr();
+            processDelayExpr2.addTerm((double) function.getAttribute(FUNCTION_PROCESS_DELAY), vars.uX[x]);
+            GRBLinExpr processDelayExpr = new GRBLinExpr();
+            processDelayExpr.add(loadDelayExpr); // d_pro_q (first term)
+            processDelayExpr.add(processDelayExpr1); // d_pro_q (second term)
+            processDelayExpr.add(processDelayExpr2); // D_pro_x * ux
+            for (int d1 : vars.getDemands(s)) {
+               GRBLinExpr processConstraintExpr1 = new GRBLinExpr();
+               processConstraintExpr1.addTerm(-(double) function.getAttribute(FUNCTION_MAX_DELAY),
+                     vars.fXSVD[x][s][v][d1]);
+               processConstraintExpr1.addConstant((double) function.getAttribute(FUNCTION_MAX_DELAY));
+               processConstraintExpr1.addTerm(1.0, vars.dSVXD[s][v][x][d1]);
+               out.add(processDelayExpr, GRB.LESS_EQUAL, processConstraintExpr1,
+                     FUNCTION_PROCESS_TRAFFIC_DELAY);
+               GRBLinExpr processConstraintExpr2 = new GRBLinExpr();
+               processConstraintExpr2.addTerm((double) function.getAttribute(FUNCTION_MAX_DELAY),
+                     vars.fXSVD[x][s][v][d1]);
+               out.add(vars.dSVXD[s][v][x][d1], GRB.LESS_EQUAL, processConstraintExpr2,
+                     FUNCTION_PROCESS_TRAFFIC_DELAY);
+            }
+         }
+   }
+
+   private GRBLinExpr processingDelayExpr(int s, int p, int d) {
       Service service = pm.getServices().get(s);
       Path path = service.getTrafficFlow().getPaths().get(p);
       GRBLinExpr processDelayGlobalExpr = new GRBLinExpr();
       for (int n = 0; n < path.getNodePath().size(); n++)
-         for (int x = 0; x < pm.getServers().size(); x++)
-            if (pm.getServers().get(x).getParent().equals(path.getNodePath().get(n)))
-               for (int v = 0; v < service.getFunctions().size(); v++) {
-                  Function function = service.getFunctions().get(v);
-                  double ratio = (double) function.getAttribute(FUNCTION_LOAD_RATIO)
-                        * (double) function.getAttribute(FUNCTION_PROCESS_TRAFFIC_DELAY)
-                        / ((int) function.getAttribute(FUNCTION_MAX_DEM) * (int) function.getAttribute(FUNCTION_MAX_BW)
-                              * (double) function.getAttribute(FUNCTION_LOAD_RATIO));
-                  GRBLinExpr loadDelayExpr = new GRBLinExpr();
-                  for (int d1 = 0; d1 < service.getTrafficFlow().getDemands().size(); d1++)
-                     if (service.getTrafficFlow().getAux().get(d1))
-                        loadDelayExpr.addTerm(ratio * service.getTrafficFlow().getDemands().get(d1),
-                              vars.fXSVD[x][s][v][d1]);
-                  GRBLinExpr processDelayExpr1 = new GRBLinExpr();
-                  processDelayExpr1.addTerm((double) function.getAttribute(FUNCTION_MIN_PROCESS_DELAY),
-                        vars.fXSV[x][s][v]);
-                  GRBLinExpr processDelayExpr2 = new GRBLinExpr();
-                  processDelayExpr2.addTerm((double) function.getAttribute(FUNCTION_PROCESS_DELAY), vars.uX[x]);
-                  GRBLinExpr processDelayExpr = new GRBLinExpr();
-                  processDelayExpr.add(loadDelayExpr); // d_pro_q (first term)
-                  processDelayExpr.add(processDelayExpr1); // d_pro_q (second term)
-                  processDelayExpr.add(processDelayExpr2); // D_pro_x * ux
-                  for (int d1 = 0; d1 < service.getTrafficFlow().getDemands().size(); d1++)
-                     if (service.getTrafficFlow().getAux().get(d1)) {
-                        GRBLinExpr processConstraintExpr1 = new GRBLinExpr();
-                        processConstraintExpr1.addTerm(-(double) function.getAttribute(FUNCTION_MAX_DELAY),
-                              vars.fXSVD[x][s][v][d1]);
-                        processConstraintExpr1.addConstant((double) function.getAttribute(FUNCTION_MAX_DELAY));
-                        processConstraintExpr1.addTerm(1.0, vars.dSVXD[s][v][x][d1]);
-                        modelLP.getGrbModel().addConstr(processDelayExpr, GRB.LESS_EQUAL, processConstraintExpr1,
-                              FUNCTION_PROCESS_TRAFFIC_DELAY);
-                        GRBLinExpr processConstraintExpr2 = new GRBLinExpr();
-                        processConstraintExpr2.addTerm((double) function.getAttribute(FUNCTION_MAX_DELAY),
-                              vars.fXSVD[x][s][v][d1]);
-                        modelLP.getGrbModel().addConstr(vars.dSVXD[s][v][x][d1], GRB.LESS_EQUAL, processConstraintExpr2,
-                              FUNCTION_PROCESS_TRAFFIC_DELAY);
-                     }
-                  processDelayGlobalExpr.addTerm(1.0, vars.dSVXD[s][v][x][d]);
-               }
+         for (int x : index.getServersOnPath(s, p, n))
+            for (int v = 0; v < service.getFunctions().size(); v++)
+               processDelayGlobalExpr.addTerm(1.0, vars.dSVXD[s][v][x][d]);
       return processDelayGlobalExpr;
    }
 
@@ -448,7 +503,8 @@ public class SpecificConstraints {
       for (int x = 0; x < pm.getServers().size(); x++)
          for (int v = 0; v < service.getFunctions().size(); v++)
             if (initialModel[x][s][v]) {
-               linExpr.addTerm(-downtime, vars.fXSV[x][s][v]);
+               if (vars.fXSV[x][s][v] != null)
+                  linExpr.addTerm(-downtime, vars.fXSV[x][s][v]);
                linExpr.addConstant(downtime);
             }
       return linExpr;
@@ -456,22 +512,19 @@ public class SpecificConstraints {
 
    // synchronization traffic
    private void syncTraffic(GRBLinExpr[] linkLoadExpr) throws GRBException {
-      for (int s = 0; s < pm.getServices().size(); s++)
+      sink.addPerService(pm.getServices().size(), (out, s) -> {
          for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
             for (int x = 0; x < pm.getServers().size(); x++)
                for (int y = 0; y < pm.getServers().size(); y++) {
-                  if (pm.getServers().get(x).getParent().equals(pm.getServers().get(y).getParent()))
+                  if (vars.gSVXY[s][v][x][y] == null) // same node or not admissible
                      continue;
-                  modelLP.getGrbModel().addConstr(vars.gSVXY[s][v][x][y], GRB.LESS_EQUAL, vars.fXSV[x][s][v],
-                        gSVXY + "_1[s][v][x][y] --> " + "[" + s + "][" + v + "][" + x + "][" + y + "]");
-                  modelLP.getGrbModel().addConstr(vars.gSVXY[s][v][x][y], GRB.LESS_EQUAL, vars.fXSV[y][s][v],
-                        gSVXY + "_2[s][v][x][y] --> " + "[" + s + "][" + v + "][" + x + "][" + y + "]");
+                  out.add(vars.gSVXY[s][v][x][y], GRB.LESS_EQUAL, vars.fXSV[x][s][v], gSVXY1Name, s, v, x, y);
+                  out.add(vars.gSVXY[s][v][x][y], GRB.LESS_EQUAL, vars.fXSV[y][s][v], gSVXY2Name, s, v, x, y);
                   GRBLinExpr expr = new GRBLinExpr();
                   expr.addTerm(1.0, vars.fXSV[x][s][v]);
                   expr.addTerm(1.0, vars.fXSV[y][s][v]);
                   expr.addConstant(-1.0);
-                  modelLP.getGrbModel().addConstr(vars.gSVXY[s][v][x][y], GRB.GREATER_EQUAL, expr,
-                        gSVXY + "_3[s][v][x][y] --> " + "[" + s + "][" + v + "][" + x + "][" + y + "]");
+                  out.add(vars.gSVXY[s][v][x][y], GRB.GREATER_EQUAL, expr, gSVXY3Name, s, v, x, y);
                   expr = new GRBLinExpr();
                   for (int p = 0; p < pm.getPaths().size(); p++) {
                      Path pa = pm.getPaths().get(p);
@@ -479,12 +532,11 @@ public class SpecificConstraints {
                            .get(pa.getNodePath().size() - 1).equals(pm.getServers().get(y).getParent()))
                         expr.addTerm(1.0, vars.hSVP[s][v][p]);
                   }
-                  modelLP.getGrbModel().addConstr(vars.gSVXY[s][v][x][y], GRB.LESS_EQUAL, expr,
-                        gSVXY + "_4[s][v][x][y] --> " + "[" + s + "][" + v + "][" + x + "][" + y + "]");
-                  modelLP.getGrbModel().addConstr(expr, GRB.LESS_EQUAL, 1.0,
-                        gSVXY + "_3[s][v][x][y] --> " + "[" + s + "][" + v + "][" + x + "][" + y + "]");
+                  out.add(vars.gSVXY[s][v][x][y], GRB.LESS_EQUAL, expr, gSVXY4Name, s, v, x, y);
+                  out.add(expr, GRB.LESS_EQUAL, 1.0, gSVXY3Name, s, v, x, y);
                }
-      for (int s = 0; s < pm.getServices().size(); s++)
+      });
+      sink.addPerService(pm.getServices().size(), (out, s) -> {
          for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
             for (int n = 0; n < pm.getNodes().size(); n++)
                for (int m = 0; m < pm.getNodes().size(); m++) {
@@ -501,11 +553,12 @@ public class SpecificConstraints {
                   for (int x = 0; x < pm.getServers().size(); x++)
                      for (int y = 0; y < pm.getServers().size(); y++)
                         if (pm.getServers().get(x).getParent().equals(pm.getNodes().get(n))
-                              && pm.getServers().get(y).getParent().equals(pm.getNodes().get(m)))
+                              && pm.getServers().get(y).getParent().equals(pm.getNodes().get(m))
+                              && vars.gSVXY[s][v][x][y] != null)
                            expr2.addTerm(1.0, vars.gSVXY[s][v][x][y]);
-                  modelLP.getGrbModel().addConstr(expr, GRB.LESS_EQUAL, expr2,
-                        SYNC_TRAFFIC + "[s][v][n][m] --> " + "[" + s + "][" + v + "][" + n + "][" + m + "]");
+                  out.add(expr, GRB.LESS_EQUAL, expr2, syncTrafficName, s, v, n, m);
                }
+      });
       for (int l = 0; l < pm.getLinks().size(); l++) {
          GRBLinExpr expr = new GRBLinExpr();
          for (int p = 0; p < pm.getPaths().size(); p++) {
@@ -513,9 +566,8 @@ public class SpecificConstraints {
                continue;
             for (int s = 0; s < pm.getServices().size(); s++) {
                double traffic = 0;
-               for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-                  if (pm.getServices().get(s).getTrafficFlow().getAux().get(d))
-                     traffic += pm.getServices().get(s).getTrafficFlow().getDemands().get(d);
+               for (int d : vars.getDemands(s))
+                  traffic += pm.getServices().get(s).getTrafficFlow().getDemands().get(d);
                for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++) {
                   double trafficScaled = traffic
                         * (double) pm.getServices().get(s).getFunctions().get(v).getAttribute(FUNCTION_SYNC_LOAD_RATIO);
@@ -531,14 +583,14 @@ public class SpecificConstraints {
    private void useOnlyCloudServers() throws GRBException {
       for (int x = 0; x < pm.getServers().size(); x++)
          if ((int) pm.getServers().get(x).getParent().getAttribute(NODE_TYPE) != NODE_TYPE_CLOUD)
-            modelLP.getGrbModel().addConstr(vars.fX[x], GRB.EQUAL, 0.0, CLOUD_ONLY);
+            sink.add(vars.fX[x], GRB.EQUAL, 0.0, CLOUD_ONLY);
    }
 
    // use only edge servers
    private void useOnlyEdgeServers() throws GRBException {
       for (int x = 0; x < pm.getServers().size(); x++)
          if ((int) pm.getServers().get(x).getParent().getAttribute(NODE_TYPE) == NODE_TYPE_CLOUD)
-            modelLP.getGrbModel().addConstr(vars.fX[x], GRB.EQUAL, 0.0, EDGE_ONLY);
+            sink.add(vars.fX[x], GRB.EQUAL, 0.0, EDGE_ONLY);
    }
 
    // Single path (no replicas)
@@ -547,7 +599,7 @@ public class SpecificConstraints {
          GRBLinExpr expr = new GRBLinExpr();
          for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
             expr.addTerm(1.0, vars.zSP[s][p]);
-         modelLP.getGrbModel().addConstr(expr, GRB.EQUAL, 1, SINGLE_PATH);
+         sink.add(expr, GRB.EQUAL, 1, SINGLE_PATH);
       }
    }
 
@@ -557,23 +609,48 @@ public class SpecificConstraints {
          for (int x = 0; x < pm.getServers().size(); x++)
             for (int s = 0; s < pm.getServices().size(); s++)
                for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
-                  if (initialPlacement[x][s][v])
-                     modelLP.getGrbModel().addConstr(vars.fXSV[x][s][v], GRB.EQUAL, 1, SET_INIT_PLC);
+                  if (initialPlacement[x][s][v]) {
+                     if (vars.fXSV[x][s][v] != null)
+                        sink.add(vars.fXSV[x][s][v], GRB.EQUAL, 1, SET_INIT_PLC);
+                     else {
+                        // the pruned variable is zero, so the row keeps the model infeasible as without pruning
+                        printLog(log, WARNING, "initial placement of function [" + s + "][" + v
+                              + "] is not on an admissible server, the model is infeasible");
+                        sink.add(new GRBLinExpr(), GRB.EQUAL, 1, SET_INIT_PLC);
+                     }
+                  }
       }
    }
 
+   // Identical servers are used and loaded in index order
+   private void symmetryBreaking(Scenario sc, boolean[][][] initialPlacement) throws GRBException {
+      ServerSymmetry symmetry = new ServerSymmetry(pm, initialPlacement);
+      modelLP.setSymmetry(symmetry);
+      // unused servers only have no load when the usage is tied to the placement
+      boolean orderLoad = sc.getConstraints().get(PF3);
+      for (int[] group : symmetry.getGroups())
+         for (int i = 0; i < group.length - 1; i++) {
+            sink.add(vars.fX[group[i]], GRB.GREATER_EQUAL, vars.fX[group[i + 1]], SYMMETRY_BREAKING);
+            if (orderLoad)
+               sink.add(vars.uX[group[i]], GRB.GREATER_EQUAL, vars.uX[group[i + 1]], SYMMETRY_BREAKING);
+         }
+      printLog(log, INFO, "symmetry breaking [" + symmetry.getGroups().size() + " groups of identical servers]");
+   }
+
    // Constraint paths servers cloud
    private void constraintPathsServersCloud() throws GRBException {
       for (int x = 0; x < pm.getServers().size(); x++)
          if ((int) pm.getServers().get(x).getParent().getAttribute(NODE_TYPE) == NODE_TYPE_CLOUD)
             for (int s = 0; s < pm.getServices().size(); s++)
                for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++) {
+                  if (vars.fXSV[x][s][v] == null) // no path of s traverses the cloud node
+                     continue;
                   GRBLinExpr expr = new GRBLinExpr();
                   for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
                      if (pm.getServices().get(s).getTrafficFlow().getPaths().get(p)
                            .contains(pm.getServers().get(x).getParent()))
                         expr.addTerm(1.0, vars.zSP[s][p]);
-                  modelLP.getGrbModel().addConstr(expr, GRB.LESS_EQUAL, vars.fXSV[x][s][v], PATHS_SERVERS_CLOUD);
+                  sink.add(expr, GRB.LESS_EQUAL, vars.fXSV[x][s][v], PATHS_SERVERS_CLOUD);
                }
    }
 
@@ -587,7 +664,7 @@ public class SpecificConstraints {
             if (pm.getServers().get(x).getParent().getId().equals(srcNode.getId()))
                exprSrc.addTerm(1.0, vars.fXSV[x][s][0]);
          }
-         modelLP.getGrbModel().addConstr(exprSrc, GRB.EQUAL, 1.0, FORCE_SRC);
+         sink.add(exprSrc, GRB.EQUAL, 1.0, FORCE_SRC);
       }
    }
 
@@ -600,7 +677,7 @@ public class SpecificConstraints {
             if (pm.getServers().get(x).getParent().getId().equals(dstNode.getId()))
                exprDst.addTerm(1.0, vars.fXSV[x][s][pm.getServices().get(s).getFunctions().size() - 1]);
          }
-         modelLP.getGrbModel().addConstr(exprDst, GRB.EQUAL, 1.0, FORCE_DST);
+         sink.add(exprDst, GRB.EQUAL, 1.0, FORCE_DST);
       }
    }
 
@@ -612,56 +689,32 @@ public class SpecificConstraints {
             expr.addTerm(1.0, vars.zSP[s][p]);
          int minPaths = (int) pm.getServices().get(s).getAttribute(SERVICE_MIN_PATHS);
          int maxPaths = (int) pm.getServices().get(s).getAttribute(SERVICE_MAX_PATHS);
-         modelLP.getGrbModel().addConstr(expr, GRB.GREATER_EQUAL, minPaths, CONST_REP);
-         modelLP.getGrbModel().addConstr(expr, GRB.LESS_EQUAL, maxPaths, CONST_REP);
+         sink.add(expr, GRB.GREATER_EQUAL, minPaths, CONST_REP);
+         sink.add(expr, GRB.LESS_EQUAL, maxPaths, CONST_REP);
       }
    }
 
    private void constVariablePropagationDelay() throws GRBException {
-      for (int s = 0; s < pm.getServices().size(); s++) {
+      sink.addPerService(pm.getServices().size(), (out, s) -> {
          Service se = pm.getServices().get(s);
-         for (int d = 0; d < se.getTrafficFlow().getDemands().size(); d++){
+         for (int d : vars.getDemands(s)) {
             for (int p = 0; p < se.getTrafficFlow().getPaths().size(); p++){
                for (int n = 0; n < se.getTrafficFlow().getPaths().get(p).size() -1; n++) {
                   int m = n +1;
                   GRBLinExpr expr = new GRBLinExpr();
                   GRBLinExpr expr2 = new GRBLinExpr();
-                  for (int m2 = m; m2 < se.getTrafficFlow().getPaths().get(p).size(); m2++) {
-                     Node nodeM = se.getTrafficFlow().getPaths().get(p).getNodePath().get(m2);
-                     for (int x = 0; x < pm.getServers().size(); x++) {
-                        if (pm.getServers().get(x).getParent().equals(nodeM)){
-                           for (int v = 0; v < se.getFunctions().size(); v++) {
-                              expr.addTerm(1.0/10000.0, vars.fXSVD[x][s][v][d]);
-                              expr2.addTerm(1.0, vars.fXSVD[x][s][v][d]);
-                           }
+                  for (int m2 = m; m2 < se.getTrafficFlow().getPaths().get(p).size(); m2++)
+                     for (int x : index.getServersOnPath(s, p, m2))
+                        for (int v = 0; v < se.getFunctions().size(); v++) {
+                           expr.addTerm(1.0/10000.0, vars.fXSVD[x][s][v][d]);
+                           expr2.addTerm(1.0, vars.fXSVD[x][s][v][d]);
                         }
-                     }
-                  }
                   // add the constraint
-                  modelLP.getGrbModel().addConstr(expr, GRB.LESS_EQUAL, vars.qSDPNM[s][d][p][n][m], 
-                     CONST_VLD + "[s][d][p][n][m] -->" + 
-                     "[" + s + "]" + "[" + d + "]" + "[" + p + "]" + "[" + n + "]" + "[" + m + "]");
-                  modelLP.getGrbModel().addConstr(expr2, GRB.GREATER_EQUAL, vars.qSDPNM[s][d][p][n][m], 
-                     CONST_VLD + "[s][d][p][n][m] -->" + 
-                     "[" + s + "]" + "[" + d + "]" + "[" + p + "]" + "[" + n + "]" + "[" + m + "]");  
+                  out.add(expr, GRB.LESS_EQUAL, vars.qSDPNM[s][d][p][n][m], constVldName, s, d, p, n, m);
+                  out.add(expr2, GRB.GREATER_EQUAL, vars.qSDPNM[s][d][p][n][m], constVldName, s, d, p, n, m);
                }
             }
          }
-      }
-   }
-
-   // read linear cost functions
-   private CostFunctions getLinearCostFunctions() {
-      CostFunctions costFunctions = null;
-      TypeReference<CostFunctions> typeReference = new TypeReference<>() {
-      };
-      InputStream inputStream = TypeReference.class.getResourceAsStream("/aux_files/linear-cost-functions.yml");
-      ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-      try {
-         costFunctions = mapper.readValue(inputStream, typeReference);
-      } catch (IOException e) {
-         e.printStackTrace();
-      }
-      return costFunctions;
+      });
    }
 }
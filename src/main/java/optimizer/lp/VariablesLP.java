@@ -11,6 +11,10 @@ import optimizer.gui.Scenario;
 import static optimizer.Definitions.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class VariablesLP {
 
@@ -38,340 +42,450 @@ public class VariablesLP {
    public GRBVar[][][][] gSVXY; // binary, aux synchronization traffic
    public GRBVar[][][] hSVP; // binary, traffic synchronization
    public GRBVar[][][][][] qSDPNM; // ignores propagation delay after last VNF
+
+   // servers for which placement variables are created, per service
+   private int[][] servers;
+   private boolean[][] admissible;
+   // active demands per service, mapping compact positions to the original demand indices
+   private int[][] demands;
+   // variables of the initial model by name, null when there is no initial model
+   private Map<String, GRBVar> initialVars;
+
    public VariablesLP(Parameters pm, GRBModel model, Scenario sc, GRBModel initialSolution) {
       try {
+         initServers(pm);
+         initDemands(pm);
+         if (initialSolution != null)
+            initialVars = varsByName(initialSolution);
 
-         zSP_init(pm, model, initialSolution);
-         zSPD_init(pm, model, initialSolution);
-         fX_init(pm, model, initialSolution);
-         fXSV_init(pm, model, initialSolution);
-         fXSVD_init(pm, model, initialSolution);
-         uL_init(pm, model, initialSolution);
-         uX_init(pm, model, initialSolution);
+         zSP_init(pm, model);
+         zSPD_init(pm, model);
+         fX_init(pm, model);
+         fXSV_init(pm, model);
+         fXSVD_init(pm, model);
+         uL_init(pm, model);
+         uX_init(pm, model);
 
          /************ additional variables **********/
          // model dimension number of servers
          if (sc.getObjFunc().equals(DIMEN_NUM_SERVERS))
-            xN_init(pm, model, initialSolution);
+            xN_init(pm, model);
          // model dimension link capacity
          if (sc.getObjFunc().equals(DIMEN_LINK_CAP))
-            cLT_init(pm, model, initialSolution);
+            cLT_init(pm, model);
          // model dimension server capacity
          if (sc.getObjFunc().equals(DIMEN_SERVER_CAP) || sc.getObjFunc().equals(DIMEN_SERVER_COSTS))
-            cXT_init(pm, model, initialSolution);
-         // model optimizes utilization costs
-         if (sc.getObjFunc().equals(NUM_SERVERS_AND_UTIL_COSTS) || sc.getObjFunc().equals(UTIL_COSTS)
+            cXT_init(pm, model);
+         // model optimizes utilization costs, set as piecewise-linear objectives of the utilization in pwl mode
+         boolean pwlCosts = (boolean) pm.getGlobal(PWL_COSTS);
+         if ((!pwlCosts && (sc.getObjFunc().equals(NUM_SERVERS_AND_UTIL_COSTS) || sc.getObjFunc().equals(UTIL_COSTS)))
                || sc.getObjFunc().equals(UTIL_COSTS_AND_MAX_UTIL)) {
-            kL_init(pm, model, initialSolution);
-            kX_init(pm, model, initialSolution);
+            kL_init(pm, model);
+            kX_init(pm, model);
          }
          // model optimizes max utilization
          if (sc.getObjFunc().equals(UTIL_COSTS_AND_MAX_UTIL))
-            uMax_init(pm, model, initialSolution);
+            uMax_init(pm, model);
          // model optimizes opex costs
          if (sc.getObjFunc().equals(OPEX_SERVERS)) {
-            oX_init(pm, model, initialSolution);
-            dSVXD_init(pm, model, initialSolution);
+            oX_init(pm, model);
+            dSVXD_init(pm, model);
          }
          // model optimizes charges
          if (sc.getObjFunc().equals(FUNCTIONS_CHARGES)) {
-            oSV_init(pm, model, initialSolution);
-            dSVXD_init(pm, model, initialSolution);
+            oSV_init(pm, model);
+            dSVXD_init(pm, model);
          }
          // model optimizes qos penalties
          if (sc.getObjFunc().equals(QOS_PENALTIES)) {
-            qSDP_init(pm, model, initialSolution);
-            ySDP_init(pm, model, initialSolution);
-            dSVXD_init(pm, model, initialSolution);
+            qSDP_init(pm, model);
+            ySDP_init(pm, model);
+            dSVXD_init(pm, model);
          }
          // model optimizes all monetary costs
          if (sc.getObjFunc().equals(ALL_MONETARY_COSTS)) {
-            oX_init(pm, model, initialSolution);
-            oSV_init(pm, model, initialSolution);
-            qSDP_init(pm, model, initialSolution);
-            ySDP_init(pm, model, initialSolution);
-            dSVXD_init(pm, model, initialSolution);
+            oX_init(pm, model);
+            oSV_init(pm, model);
+            qSDP_init(pm, model);
+            ySDP_init(pm, model);
+            dSVXD_init(pm, model);
          }
          // model optimizes migrations or replications
          if (sc.getObjFunc().equals(MGR) || sc.getObjFunc().equals(REP) || sc.getObjFunc().equals(MGR_REP)) {
-            // qSDP_init(pm, model, initialSolution);
-            // ySDP_init(pm, model, initialSolution);
-            // dSVXD_init(pm, model, initialSolution);
+            // qSDP_init(pm, model);
+            // ySDP_init(pm, model);
+            // dSVXD_init(pm, model);
          }
          // model considers synchronization traffic
          if (sc.getConstraints().get(SYNC_TRAFFIC)) {
-            gSVXY_init(pm, model, initialSolution);
-            hSVP_init(pm, model, initialSolution);
+            gSVXY_init(pm, model);
+            hSVP_init(pm, model);
          }
          // model constrainst max service delay
          if (sc.getConstraints().get(MAX_SERV_DELAY))
-            dSVXD_init(pm, model, initialSolution);
+            dSVXD_init(pm, model);
 
          if (sc.getConstraints().get(CONST_VLD))
-            qSDPNM_init(pm, model, initialSolution);
+            qSDPNM_init(pm, model);
 
          model.update();
       } catch (Exception ignored) {
       }
    }
 
-   private void zSP_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   // in pruned mode, only servers hosted by an admissible path of the service can place its functions
+   private void initServers(Parameters pm) {
+      boolean pruned = (boolean) pm.getGlobal(PRUNED_VARIABLES);
+      int[] allServers = new int[pm.getServers().size()];
+      for (int x = 0; x < allServers.length; x++)
+         allServers[x] = x;
+      servers = new int[pm.getServices().size()][];
+      admissible = new boolean[pm.getServices().size()][pm.getServers().size()];
+      for (int s = 0; s < pm.getServices().size(); s++) {
+         servers[s] = pruned ? pm.getIncidenceIndex().getAdmissibleServers(s) : allServers;
+         for (int x : servers[s])
+            admissible[s][x] = true;
+      }
+   }
+
+   public int[] getServers(int s) {
+      return servers[s];
+   }
+
+   // variables and constraints are only generated for demands marked as used
+   private void initDemands(Parameters pm) {
+      demands = new int[pm.getServices().size()][];
+      for (int s = 0; s < pm.getServices().size(); s++) {
+         List<Boolean> aux = pm.getServices().get(s).getTrafficFlow().getAux();
+         int numDemands = pm.getServices().get(s).getTrafficFlow().getDemands().size();
+         int active = 0;
+         for (int d = 0; d < numDemands; d++)
+            if (aux.get(d))
+               active++;
+         demands[s] = new int[active];
+         int k = 0;
+         for (int d = 0; d < numDemands; d++)
+            if (aux.get(d))
+               demands[s][k++] = d;
+      }
+   }
+
+   public int[] getDemands(int s) {
+      return demands[s];
+   }
+
+   // auxiliary variables generated for an objective function, models of objectives with the same ones only differ
+   // in the objective
+   public static String objectiveVariables(String objFunc) {
+      switch (objFunc) {
+         case DIMEN_NUM_SERVERS:
+            return Definitions.xN;
+         case DIMEN_LINK_CAP:
+            return Definitions.cLT;
+         case DIMEN_SERVER_CAP:
+         case DIMEN_SERVER_COSTS:
+            return Definitions.cXT;
+         case NUM_SERVERS_AND_UTIL_COSTS:
+         case UTIL_COSTS:
+            return Definitions.kL + Definitions.kX;
+         case UTIL_COSTS_AND_MAX_UTIL:
+            return Definitions.kL + Definitions.kX + Definitions.uMax;
+         case OPEX_SERVERS:
+            return Definitions.oX + Definitions.dSVXD;
+         case FUNCTIONS_CHARGES:
+            return Definitions.oSV + Definitions.dSVXD;
+         case QOS_PENALTIES:
+            return Definitions.qSDP + Definitions.ySDP + Definitions.dSVXD;
+         case ALL_MONETARY_COSTS:
+            return Definitions.oX + Definitions.oSV + Definitions.qSDP + Definitions.ySDP + Definitions.dSVXD;
+         default:
+            return "";
+      }
+   }
+
+   // names of the initial model are read with a single call instead of one lookup per variable
+   private static Map<String, GRBVar> varsByName(GRBModel initialSolution) throws GRBException {
+      GRBVar[] vars = initialSolution.getVars();
+      String[] names = initialSolution.get(GRB.StringAttr.VarName, vars);
+      Map<String, GRBVar> map = new HashMap<>(2 * vars.length);
+      for (int i = 0; i < vars.length; i++)
+         map.put(names[i], vars[i]);
+      return map;
+   }
+
+   private void zSP_init(Parameters pm, GRBModel model) throws GRBException {
       zSP = new GRBVar[pm.getServices().size()][pm.getPathsTrafficFlow()];
+      VarBatch batch = new VarBatch(Definitions.zSP, 2, 0.0, 1.0, GRB.BINARY);
       for (int s = 0; s < pm.getServices().size(); s++)
-         for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++) {
-            String varName = Definitions.zSP + "[" + s + "][" + p + "]";
-            if (initialSolution != null)
-               zSP[s][p] = initialSolution.getVarByName(varName);
-            else
-               zSP[s][p] = model.addVar(0.0, 1.0, 0.0, GRB.BINARY, varName);
-         }
+         for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
+            batch.add(s, p);
+      GRBVar[] v = batch.create(model);
+      for (int i = 0; i < v.length; i++)
+         zSP[batch.key(i, 0)][batch.key(i, 1)] = v[i];
    }
 
-   private void zSPD_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   private void zSPD_init(Parameters pm, GRBModel model) throws GRBException {
       zSPD = new GRBVar[pm.getServices().size()][pm.getPathsTrafficFlow()][pm.getDemandsTrafficFlow()];
+      VarBatch batch = new VarBatch(Definitions.zSPD, 3, 0.0, 1.0, GRB.BINARY);
       for (int s = 0; s < pm.getServices().size(); s++)
          for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
-            for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++) {
-               String varName = Definitions.zSPD + "[" + s + "][" + p + "][" + d + "]";
-               if (initialSolution != null)
-                  zSPD[s][p][d] = initialSolution.getVarByName(varName);
-               else
-                  zSPD[s][p][d] = model.addVar(0.0, 1.0, 0.0, GRB.BINARY, varName);
-            }
-   }
-
-   private void fX_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
-      fX = new GRBVar[pm.getServers().size()];
-      for (int x = 0; x < pm.getServers().size(); x++) {
-         String varName = Definitions.fX + "[" + x + "]";
-         if (initialSolution != null)
-            fX[x] = initialSolution.getVarByName(varName);
-         else
-            fX[x] = model.addVar(0.0, 1.0, 0.0, GRB.BINARY, varName);
-      }
+            for (int d : demands[s])
+               batch.add(s, p, d);
+      GRBVar[] v = batch.create(model);
+      for (int i = 0; i < v.length; i++)
+         zSPD[batch.key(i, 0)][batch.key(i, 1)][batch.key(i, 2)] = v[i];
+   }
+
+   private void fX_init(Parameters pm, GRBModel model) throws GRBException {
+      fX = vector(Definitions.fX, pm.getServers().size(), 0.0, 1.0, GRB.BINARY, model);
    }
 
-   private void fXSV_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   private void fXSV_init(Parameters pm, GRBModel model) throws GRBException {
       fXSV = new GRBVar[pm.getServers().size()][pm.getServices().size()][pm.getServiceLength()];
+      VarBatch batch = new VarBatch(Definitions.fXSV, 3, 0.0, 1.0, GRB.BINARY);
       for (int x = 0; x < pm.getServers().size(); x++)
          for (int s = 0; s < pm.getServices().size(); s++)
-            for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++) {
-               String varName = Definitions.fXSV + "[" + x + "][" + s + "][" + v + "]";
-               if (initialSolution != null)
-                  fXSV[x][s][v] = initialSolution.getVarByName(varName);
-               else
-                  fXSV[x][s][v] = model.addVar(0.0, 1.0, 0.0, GRB.BINARY, varName);
-            }
+            for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
+               if (admissible[s][x])
+                  batch.add(x, s, v);
+      GRBVar[] v = batch.create(model);
+      for (int i = 0; i < v.length; i++)
+         fXSV[batch.key(i, 0)][batch.key(i, 1)][batch.key(i, 2)] = v[i];
    }
 
-   private void fXSVD_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   private void fXSVD_init(Parameters pm, GRBModel model) throws GRBException {
       fXSVD = new GRBVar[pm.getServers().size()][pm.getServices().size()][pm.getServiceLength()][pm
             .getDemandsTrafficFlow()];
+      VarBatch batch = new VarBatch(Definitions.fXSVD, 4, 0.0, 1.0, GRB.BINARY);
       for (int x = 0; x < pm.getServers().size(); x++)
          for (int s = 0; s < pm.getServices().size(); s++)
-            for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
-               for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++) {
-                  String varName = Definitions.fXSVD + "[" + x + "][" + s + "][" + v + "][" + d + "]";
-                  if (initialSolution != null)
-                     fXSVD[x][s][v][d] = initialSolution.getVarByName(varName);
-                  else
-                     fXSVD[x][s][v][d] = model.addVar(0.0, 1.0, 0.0, GRB.BINARY, varName);
-               }
-   }
-
-   private void uL_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
-      uL = new GRBVar[pm.getLinks().size()];
-      for (int l = 0; l < pm.getLinks().size(); l++) {
-         String varName = Definitions.uL + "[" + l + "]";
-         if (initialSolution != null)
-            uL[l] = initialSolution.getVarByName(varName);
-         else
-            uL[l] = model.addVar(0.0, 1.0, 0.0, GRB.CONTINUOUS, varName);
-      }
+            if (admissible[s][x])
+               for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
+                  for (int d : demands[s])
+                     batch.add(x, s, v, d);
+      GRBVar[] v = batch.create(model);
+      for (int i = 0; i < v.length; i++)
+         fXSVD[batch.key(i, 0)][batch.key(i, 1)][batch.key(i, 2)][batch.key(i, 3)] = v[i];
    }
 
-   private void uX_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
-      uX = new GRBVar[pm.getServers().size()];
-      for (int x = 0; x < pm.getServers().size(); x++) {
-         String varName = Definitions.uX + "[" + x + "]";
-         if (initialSolution != null)
-            uX[x] = initialSolution.getVarByName(varName);
-         else
-            uX[x] = model.addVar(0.0, 1.0, 0.0, GRB.CONTINUOUS, varName);
-      }
+   private void uL_init(Parameters pm, GRBModel model) throws GRBException {
+      uL = vector(Definitions.uL, pm.getLinks().size(), 0.0, 1.0, GRB.CONTINUOUS, model);
    }
 
-   private void xN_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
-      xN = new GRBVar[pm.getNodes().size()];
-      for (int n = 0; n < pm.getNodes().size(); n++) {
-         String varName = Definitions.xN + "[" + n + "]";
-         if (initialSolution != null)
-            xN[n] = initialSolution.getVarByName(varName);
-         else
-            xN[n] = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.INTEGER, varName);
-      }
+   private void uX_init(Parameters pm, GRBModel model) throws GRBException {
+      uX = vector(Definitions.uX, pm.getServers().size(), 0.0, 1.0, GRB.CONTINUOUS, model);
+   }
+
+   private void xN_init(Parameters pm, GRBModel model) throws GRBException {
+      xN = vector(Definitions.xN, pm.getNodes().size(), 0.0, GRB.INFINITY, GRB.INTEGER, model);
    }
 
-   private void cLT_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   private void cLT_init(Parameters pm, GRBModel model) throws GRBException {
       ArrayList<Integer> types = (ArrayList<Integer>) pm.getGlobal().get(LINK_CAPACITY_TYPES);
-      cLT = new GRBVar[pm.getLinks().size()][types.size()];
-      for (int l = 0; l < pm.getLinks().size(); l++)
-         for (int t = 0; t < types.size(); t++) {
-            String varName = Definitions.cLT + "[" + l + "][" + t + "]";
-            cLT[l][t] = model.addVar(0.0, 1.0, 0.0, GRB.BINARY, varName);
-         }
+      cLT = matrix(Definitions.cLT, pm.getLinks().size(), types.size(), 0.0, 1.0, capacityType(pm), model);
    }
 
-   private void cXT_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   private void cXT_init(Parameters pm, GRBModel model) throws GRBException {
       ArrayList<Integer> types = (ArrayList<Integer>) pm.getGlobal().get(SERVER_CAPACITY_TYPES);
-      cXT = new GRBVar[pm.getServers().size()][types.size()];
-      for (int x = 0; x < pm.getServers().size(); x++)
-         for (int t = 0; t < types.size(); t++) {
-            String varName = Definitions.cXT + "[" + x + "][" + t + "]";
-            cXT[x][t] = model.addVar(0.0, 1.0, 0.0, GRB.BINARY, varName);
-         }
+      cXT = matrix(Definitions.cXT, pm.getServers().size(), types.size(), 0.0, 1.0, capacityType(pm), model);
    }
 
-   private void kL_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
-      kL = new GRBVar[pm.getLinks().size()];
-      for (int l = 0; l < pm.getLinks().size(); l++) {
-         String varName = Definitions.kL + "[" + l + "]";
-         if (initialSolution != null)
-            kL[l] = initialSolution.getVarByName(varName);
-         else
-            kL[l] = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, varName);
-      }
+   // with SOS1 sets the single selected type is already integral
+   private static char capacityType(Parameters pm) {
+      return (boolean) pm.getGlobal(SOS_CAPACITY_TYPES) ? GRB.CONTINUOUS : GRB.BINARY;
    }
 
-   private void kX_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
-      kX = new GRBVar[pm.getServers().size()];
-      for (int x = 0; x < pm.getServers().size(); x++) {
-         String varName = Definitions.kX + "[" + x + "]";
-         if (initialSolution != null)
-            kX[x] = initialSolution.getVarByName(varName);
-         else
-            kX[x] = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, varName);
-      }
+   private void kL_init(Parameters pm, GRBModel model) throws GRBException {
+      kL = vector(Definitions.kL, pm.getLinks().size(), 0.0, GRB.INFINITY, GRB.CONTINUOUS, model);
    }
 
-   private void uMax_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
-      String varName = Definitions.uMax;
-      if (initialSolution != null)
-         uMax = initialSolution.getVarByName(varName);
-      else
-         uMax = model.addVar(0.0, 1.0, 0.0, GRB.CONTINUOUS, varName);
+   private void kX_init(Parameters pm, GRBModel model) throws GRBException {
+      kX = vector(Definitions.kX, pm.getServers().size(), 0.0, GRB.INFINITY, GRB.CONTINUOUS, model);
    }
 
-   private void oX_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
-      oX = new GRBVar[pm.getServers().size()];
-      for (int x = 0; x < pm.getServers().size(); x++) {
-         String varName = Definitions.oX + "[" + x + "]";
-         if (initialSolution != null)
-            oX[x] = initialSolution.getVarByName(varName);
-         else
-            oX[x] = model.addVar(0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, varName);
-      }
+   private void uMax_init(Parameters pm, GRBModel model) throws GRBException {
+      VarBatch batch = new VarBatch(Definitions.uMax, 0, 0.0, 1.0, GRB.CONTINUOUS);
+      batch.add();
+      uMax = batch.create(model)[0];
+   }
+
+   private void oX_init(Parameters pm, GRBModel model) throws GRBException {
+      oX = vector(Definitions.oX, pm.getServers().size(), 0.0, GRB.INFINITY, GRB.CONTINUOUS, model);
    }
 
-   private void oSV_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   private void oSV_init(Parameters pm, GRBModel model) throws GRBException {
       oSV = new GRBVar[pm.getServices().size()][pm.getServiceLength()];
+      VarBatch batch = new VarBatch(Definitions.oSV, 2, 0.0, GRB.INFINITY, GRB.CONTINUOUS);
       for (int s = 0; s < pm.getServices().size(); s++)
-         for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++) {
-            String varName = Definitions.oSV + "[" + s + "][" + v + "]";
-            if (initialSolution != null)
-               oSV[s][v] = initialSolution.getVarByName(varName);
-            else
-               oSV[s][v] = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, varName);
-         }
+         for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
+            batch.add(s, v);
+      GRBVar[] v = batch.create(model);
+      for (int i = 0; i < v.length; i++)
+         oSV[batch.key(i, 0)][batch.key(i, 1)] = v[i];
    }
 
-   private void qSDP_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   private void qSDP_init(Parameters pm, GRBModel model) throws GRBException {
       qSDP = new GRBVar[pm.getServices().size()][pm.getDemandsTrafficFlow()][pm.getPathsTrafficFlow()];
-      for (int s = 0; s < pm.getServices().size(); s++)
-         for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-            for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++) {
-               String varName = Definitions.qSDP + "[" + s + "][" + d + "][" + p + "]";
-               if (initialSolution != null)
-                  qSDP[s][d][p] = initialSolution.getVarByName(varName);
-               else
-                  qSDP[s][d][p] = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, varName);
-            }
+      sdp(qSDP, Definitions.qSDP, pm, model);
    }
 
-   private void ySDP_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   private void ySDP_init(Parameters pm, GRBModel model) throws GRBException {
       ySDP = new GRBVar[pm.getServices().size()][pm.getDemandsTrafficFlow()][pm.getPathsTrafficFlow()];
+      sdp(ySDP, Definitions.ySDP, pm, model);
+   }
+
+   private void sdp(GRBVar[][][] vars, String family, Parameters pm, GRBModel model) throws GRBException {
+      VarBatch batch = new VarBatch(family, 3, 0.0, GRB.INFINITY, GRB.CONTINUOUS);
       for (int s = 0; s < pm.getServices().size(); s++)
-         for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-            for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++) {
-               String varName = Definitions.ySDP + "[" + s + "][" + d + "][" + p + "]";
-               if (initialSolution != null)
-                  ySDP[s][d][p] = initialSolution.getVarByName(varName);
-               else
-                  ySDP[s][d][p] = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, varName);
-            }
+         for (int d : demands[s])
+            for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
+               batch.add(s, d, p);
+      GRBVar[] v = batch.create(model);
+      for (int i = 0; i < v.length; i++)
+         vars[batch.key(i, 0)][batch.key(i, 1)][batch.key(i, 2)] = v[i];
    }
 
-   private void gSVXY_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   private void gSVXY_init(Parameters pm, GRBModel model) throws GRBException {
       gSVXY = new GRBVar[pm.getServices().size()][pm.getServiceLength()][pm.getServers().size()][pm.getServers()
             .size()];
+      VarBatch batch = new VarBatch(Definitions.gSVXY, 4, 0.0, 1.0, GRB.BINARY);
       for (int s = 0; s < pm.getServices().size(); s++)
          for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
             for (int x = 0; x < pm.getServers().size(); x++)
                for (int y = 0; y < pm.getServers().size(); y++)
-                  if (!pm.getServers().get(x).getParent().equals(pm.getServers().get(y).getParent())) {
-                     String varName = Definitions.gSVXY + "[" + s + "][" + v + "][" + x + "][" + y + "]";
-                     if (initialSolution != null)
-                        gSVXY[s][v][x][y] = initialSolution.getVarByName(varName);
-                     else
-                        gSVXY[s][v][x][y] = model.addVar(0.0, 1.0, 0.0, GRB.BINARY, varName);
-                  }
+                  if (!pm.getServers().get(x).getParent().equals(pm.getServers().get(y).getParent())
+                        && admissible[s][x] && admissible[s][y])
+                     batch.add(s, v, x, y);
+      GRBVar[] v = batch.create(model);
+      for (int i = 0; i < v.length; i++)
+         gSVXY[batch.key(i, 0)][batch.key(i, 1)][batch.key(i, 2)][batch.key(i, 3)] = v[i];
    }
 
-   private void hSVP_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   private void hSVP_init(Parameters pm, GRBModel model) throws GRBException {
       hSVP = new GRBVar[pm.getServices().size()][pm.getServiceLength()][pm.getPaths().size()];
+      VarBatch batch = new VarBatch(Definitions.hSVP, 3, 0.0, 1.0, GRB.BINARY);
       for (int s = 0; s < pm.getServices().size(); s++)
          for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
-            for (int p = 0; p < pm.getPaths().size(); p++) {
-               String varName = Definitions.hSVP + "[" + s + "][" + v + "][" + p + "]";
-               if (initialSolution != null)
-                  hSVP[s][v][p] = initialSolution.getVarByName(varName);
-               else
-                  hSVP[s][v][p] = model.addVar(0.0, 1.0, 0.0, GRB.BINARY, varName);
-            }
+            for (int p = 0; p < pm.getPaths().size(); p++)
+               batch.add(s, v, p);
+      GRBVar[] v = batch.create(model);
+      for (int i = 0; i < v.length; i++)
+         hSVP[batch.key(i, 0)][batch.key(i, 1)][batch.key(i, 2)] = v[i];
    }
 
-   private void dSVXD_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   private void dSVXD_init(Parameters pm, GRBModel model) throws GRBException {
       dSVXD = new GRBVar[pm.getServices().size()][pm.getServiceLength()][pm.getServers().size()][pm
             .getDemandsTrafficFlow()];
+      VarBatch batch = new VarBatch(Definitions.dSVXD, 4, 0.0, GRB.INFINITY, GRB.CONTINUOUS);
       for (int s = 0; s < pm.getServices().size(); s++)
          for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
-            for (int x = 0; x < pm.getServers().size(); x++)
-               for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++) {
-                  String varName = Definitions.dSVXD + "[" + s + "][" + v + "][" + x + "][" + d + "]";
-                  if (initialSolution != null)
-                     dSVXD[s][v][x][d] = initialSolution.getVarByName(varName);
-                  else
-                     dSVXD[s][v][x][d] = model.addVar(0.0, GRB.INFINITY, 0.0, GRB.CONTINUOUS, varName);
-               }
+            for (int x : servers[s])
+               for (int d : demands[s])
+                  batch.add(s, v, x, d);
+      GRBVar[] v = batch.create(model);
+      for (int i = 0; i < v.length; i++)
+         dSVXD[batch.key(i, 0)][batch.key(i, 1)][batch.key(i, 2)][batch.key(i, 3)] = v[i];
    }
 
-   private void qSDPNM_init(Parameters pm, GRBModel model, GRBModel initialSolution) throws GRBException {
+   private void qSDPNM_init(Parameters pm, GRBModel model) throws GRBException {
       qSDPNM = new GRBVar[pm.getServices().size()][pm.getDemandsTrafficFlow()][pm.getPaths().size()][pm.getNodes().size()][pm.getNodes().size()];
-      for (int s = 0; s < pm.getServices().size(); s++) {
-         for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++) {
-            for (int p = 0; p < pm.getPaths().size(); p++) {
-               for (int n = 0; n < pm.getNodes().size(); n++) {
-                  for (int m = 0; m < pm.getNodes().size(); m++) {
-                     String varName = Definitions.qSDPNM + "[" + s + "]" + "[" + d + "]" + "[" + p + "]" + "[" + n + "]" + "[" + m + "]";
-                     if(initialSolution != null) {
-                        qSDPNM[s][d][p][n][m] = initialSolution.getVarByName(varName);
-                     } else {
-                        qSDPNM[s][d][p][n][m] = model.addVar(0.0, 1.0, 0.0, GRB.BINARY, varName);
-                     }
-                  }
-               }
-            }
+      VarBatch batch = new VarBatch(Definitions.qSDPNM, 5, 0.0, 1.0, GRB.BINARY);
+      for (int s = 0; s < pm.getServices().size(); s++)
+         for (int d : demands[s])
+            for (int p = 0; p < pm.getPaths().size(); p++)
+               for (int n = 0; n < pm.getNodes().size(); n++)
+                  for (int m = 0; m < pm.getNodes().size(); m++)
+                     batch.add(s, d, p, n, m);
+      GRBVar[] v = batch.create(model);
+      for (int i = 0; i < v.length; i++)
+         qSDPNM[batch.key(i, 0)][batch.key(i, 1)][batch.key(i, 2)][batch.key(i, 3)][batch.key(i, 4)] = v[i];
+   }
+
+   private GRBVar[] vector(String family, int size, double lb, double ub, char type, GRBModel model)
+         throws GRBException {
+      VarBatch batch = new VarBatch(family, 1, lb, ub, type);
+      for (int i = 0; i < size; i++)
+         batch.add(i);
+      return batch.create(model);
+   }
+
+   private GRBVar[][] matrix(String family, int rows, int cols, double lb, double ub, char type, GRBModel model)
+         throws GRBException {
+      GRBVar[][] vars = new GRBVar[rows][cols];
+      VarBatch batch = new VarBatch(family, 2, lb, ub, type);
+      for (int i = 0; i < rows; i++)
+         for (int j = 0; j < cols; j++)
+            batch.add(i, j);
+      GRBVar[] v = batch.create(model);
+      for (int i = 0; i < v.length; i++)
+         vars[batch.key(i, 0)][batch.key(i, 1)] = v[i];
+      return vars;
+   }
+
+   // indices of the variables of one family, created with a single addVars call and then placed in the family arrays
+   private class VarBatch {
+      private final String family;
+      private final int dims;
+      private final double lb;
+      private final double ub;
+      private final char type;
+      private int[] keys;
+      private int size;
+
+      VarBatch(String family, int dims, double lb, double ub, char type) {
+         this.family = family;
+         this.dims = dims;
+         this.lb = lb;
+         this.ub = ub;
+         this.type = type;
+         this.keys = new int[Math.max(dims, 1) * 64];
+      }
+
+      void add(int... key) {
+         if ((size + 1) * dims > keys.length)
+            keys = Arrays.copyOf(keys, 2 * keys.length);
+         System.arraycopy(key, 0, keys, size * dims, dims);
+         size++;
+      }
+
+      int key(int i, int k) {
+         return keys[i * dims + k];
+      }
+
+      private String name(int i) {
+         StringBuilder name = new StringBuilder(family);
+         for (int k = 0; k < dims; k++)
+            name.append('[').append(key(i, k)).append(']');
+         return name.toString();
+      }
+
+      GRBVar[] create(GRBModel model) throws GRBException {
+         GRBVar[] vars = new GRBVar[size];
+         String[] names = new String[size];
+         int[] missing = new int[size];
+         int numMissing = 0;
+         for (int i = 0; i < size; i++) {
+            names[i] = name(i);
+            if (initialVars != null)
+               vars[i] = initialVars.get(names[i]);
+            if (vars[i] == null)
+               missing[numMissing++] = i;
          }
+         if (numMissing == 0)
+            return vars;
+         double[] lbs = new double[numMissing];
+         double[] ubs = new double[numMissing];
+         char[] types = new char[numMissing];
+         String[] newNames = new String[numMissing];
+         Arrays.fill(lbs, lb);
+         Arrays.fill(ubs, ub);
+         Arrays.fill(types, type);
+         for (int i = 0; i < numMissing; i++)
+            newNames[i] = names[missing[i]];
+         GRBVar[] created = model.addVars(lbs, ubs, null, types, newNames);
+         for (int i = 0; i < numMissing; i++)
+            vars[missing[i]] = created[i];
+         return vars;
       }
    }
 }
@@ -15,10 +15,7 @@ import org.graphstream.graph.Edge;
 import org.graphstream.graph.Path;
 import org.slf4j.Logger;
 
-import com.gurobi.gurobi.GRB;
-import com.gurobi.gurobi.GRBException;
 import com.gurobi.gurobi.GRBModel;
-import com.gurobi.gurobi.GRBVar;
 import optimizer.Parameters;
 import optimizer.elements.*;
 import optimizer.Manager;
@@ -132,189 +129,20 @@ public class Auxiliary {
       return maxProcessingDelay;
    }
 
-   public static boolean[] grbVarsToBooleans(GRBVar[] var) throws GRBException {
-      boolean[] convertedVar = new boolean[var.length];
-      for (int i = 0; i < var.length; i++) {
-         if (var[i] == null)
-            continue;
-         if (roundDouble(var[i].get(GRB.DoubleAttr.X), 1) == 1.0)
-            convertedVar[i] = true;
-      }
-      return convertedVar;
-   }
-
-   public static boolean[][] grbVarsToBooleans(GRBVar[][] var) throws GRBException {
-      boolean[][] convertedVar;
-      if (var.length > 0)
-         convertedVar = new boolean[var.length][var[0].length];
-      else
-         convertedVar = new boolean[0][0];
-      for (int i = 0; i < var.length; i++)
-         for (int j = 0; j < var[i].length; j++) {
-            if (var[i][j] == null)
-               continue;
-            if (roundDouble(var[i][j].get(GRB.DoubleAttr.X), 1) == 1.0)
-               convertedVar[i][j] = true;
-         }
-      return convertedVar;
-   }
-
-   public static boolean[][][] grbVarsToBooleans(GRBVar[][][] var) throws GRBException {
-      boolean[][][] convertedVar;
-      if (var.length > 0)
-         convertedVar = new boolean[var.length][var[0].length][var[0][0].length];
-      else
-         convertedVar = new boolean[0][0][0];
-      for (int i = 0; i < var.length; i++)
-         for (int j = 0; j < var[i].length; j++)
-            for (int k = 0; k < var[i][j].length; k++) {
-               if (var[i][j][k] == null)
-                  continue;
-               if (roundDouble(var[i][j][k].get(GRB.DoubleAttr.X), 1) == 1.0)
-                  convertedVar[i][j][k] = true;
-            }
-      return convertedVar;
-   }
-
-   public static boolean[][][][] grbVarsToBooleans(GRBVar[][][][] var) throws GRBException {
-      boolean[][][][] convertedVar;
-      if (var.length > 0)
-         convertedVar = new boolean[var.length][var[0].length][var[0][0].length][var[0][0][0].length];
-      else
-         convertedVar = new boolean[0][0][0][0];
-      for (int i = 0; i < var.length; i++)
-         for (int j = 0; j < var[i].length; j++)
-            for (int k = 0; k < var[i][j].length; k++)
-               for (int l = 0; l < var[i][j][k].length; l++) {
-                  if (var[i][j][k][l] == null)
-                     continue;
-                  if (roundDouble(var[i][j][k][l].get(GRB.DoubleAttr.X), 1) == 1.0)
-                     convertedVar[i][j][k][l] = true;
-               }
-      return convertedVar;
-   }
-
-   public static boolean[][][][][] grbVarsToBooleans(GRBVar[][][][][] var) throws GRBException {
-      boolean[][][][][] convertedVar;
-      if (var.length > 0)
-         convertedVar = new boolean[var.length][var[0].length][var[0][0].length][var[0][0][0].length][var[0][0][0][0].length];
-      else
-         convertedVar = new boolean[0][0][0][0][0];
-      for (int i = 0; i < var.length; i++)
-         for (int j = 0; j < var[i].length; j++)
-            for (int k = 0; k < var[i][j].length; k++)
-               for (int l = 0; l < var[i][j][k].length; l++) {
-                  for (int m = 0; m < var[i][j][k][l].length; m++) {
-                     if (var[i][j][k][l][m] == null)
-                        continue;
-                     if (roundDouble(var[i][j][k][l][m].get(GRB.DoubleAttr.X), 1) == 1.0)
-                        convertedVar[i][j][k][l][m] = true;
-                  }
-               }
-      return convertedVar;
-   }
-
-   public static double[] grbVarsToDoubles(GRBVar[] var) throws GRBException {
-      double[] convertedVar = new double[var.length];
-      for (int i = 0; i < var.length; i++)
-         if (var[i] != null)
-            convertedVar[i] = var[i].get(GRB.DoubleAttr.X);
-      return convertedVar;
-   }
-
-   public static double[][] grbVarsToDoubles(GRBVar[][] var) throws GRBException {
-      double[][] convertedVar = new double[var.length][var[0].length];
-      for (int i = 0; i < var.length; i++)
-         for (int j = 0; j < var[i].length; j++)
-            if (var[i][j] != null)
-               convertedVar[i][j] = var[i][j].get(GRB.DoubleAttr.X);
-      return convertedVar;
-   }
-
-   public static double[][][] grbVarsToDoubles(GRBVar[][][] var) throws GRBException {
-      double[][][] convertedVar = new double[var.length][var[0].length][var[0][0].length];
-      for (int i = 0; i < var.length; i++)
-         for (int j = 0; j < var[i].length; j++)
-            for (int k = 0; k < var[i][j].length; k++)
-               if (var[i][j][k] != null)
-                  convertedVar[i][j][k] = var[i][j][k].get(GRB.DoubleAttr.X);
-      return convertedVar;
-   }
-
-   public static double[][][][] grbVarsToDoubles(GRBVar[][][][] var) throws GRBException {
-      double[][][][] convertedVar = new double[var.length][var[0].length][var[0][0].length][var[0][0][0].length];
-      for (int i = 0; i < var.length; i++)
-         for (int j = 0; j < var[i].length; j++)
-            for (int k = 0; k < var[i][j].length; k++)
-               for (int l = 0; l < var[i][j][k].length; l++)
-                  if (var[i][j][k][l] != null)
-                     convertedVar[i][j][k][l] = var[i][j][k][l].get(GRB.DoubleAttr.X);
-      return convertedVar;
-   }
-
    public static boolean[][] zSPvarsFromInitialModel(Parameters pm, GRBModel initialModel) {
-      boolean[][] zSPvar = new boolean[pm.getServices().size()][pm.getPathsTrafficFlow()];
-      if (initialModel != null)
-         try {
-            for (int s = 0; s < pm.getServices().size(); s++)
-               for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
-                  if (initialModel.getVarByName(zSP + "[" + s + "][" + p + "]").get(GRB.DoubleAttr.X) == 1.0)
-                     zSPvar[s][p] = true;
-         } catch (GRBException e) {
-            e.printStackTrace();
-         }
-      return zSPvar;
+      return new InitialModelValues(initialModel).zSP(pm);
    }
 
    public static boolean[][][] zSPDvarsFromInitialModel(Parameters pm, GRBModel initialModel) {
-      boolean[][][] zSPDvar = new boolean[pm.getServices().size()][pm.getPathsTrafficFlow()][pm
-            .getDemandsTrafficFlow()];
-      if (initialModel != null)
-         try {
-            for (int s = 0; s < pm.getServices().size(); s++)
-               for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
-                  for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-                     if (initialModel.getVarByName(zSPD + "[" + s + "][" + p + "][" + d + "]")
-                           .get(GRB.DoubleAttr.X) == 1.0)
-                        zSPDvar[s][p][d] = true;
-         } catch (GRBException e) {
-            e.printStackTrace();
-         }
-      return zSPDvar;
+      return new InitialModelValues(initialModel).zSPD(pm);
    }
 
    public static boolean[][][] fXSVvarsFromInitialModel(Parameters pm, GRBModel initialModel) {
-      boolean[][][] fXSVvar = new boolean[pm.getServers().size()][pm.getServices().size()][pm.getServiceLength()];
-      if (initialModel != null)
-         try {
-            for (int x = 0; x < pm.getServers().size(); x++)
-               for (int s = 0; s < pm.getServices().size(); s++)
-                  for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
-                     if (initialModel.getVarByName(fXSV + "[" + x + "][" + s + "][" + v + "]")
-                           .get(GRB.DoubleAttr.X) == 1.0)
-                        fXSVvar[x][s][v] = true;
-         } catch (GRBException e) {
-            e.printStackTrace();
-         }
-      return fXSVvar;
+      return new InitialModelValues(initialModel).fXSV(pm);
    }
 
    public static boolean[][][][] fXSVDvarsFromInitialModel(Parameters pm, GRBModel initialModel) {
-      boolean[][][][] fXSVDvar = new boolean[pm.getServers().size()][pm.getServices().size()][pm.getServiceLength()][pm
-            .getDemandsTrafficFlow()];
-      if (initialModel != null)
-         try {
-            for (int x = 0; x < pm.getServers().size(); x++)
-               for (int s = 0; s < pm.getServices().size(); s++)
-                  for (int v = 0; v < pm.getServices().get(s).getFunctions().size(); v++)
-                     for (int d = 0; d < pm.getServices().get(s).getTrafficFlow().getDemands().size(); d++)
-                        if (initialModel.getVarByName(fXSVD + "[" + x + "][" + s + "][" + v + "][" + d + "]")
-                              .get(GRB.DoubleAttr.X) == 1.0)
-                           fXSVDvar[x][s][v][d] = true;
-         } catch (GRBException e) {
-            e.printStackTrace();
-         }
-      return fXSVDvar;
+      return new InitialModelValues(initialModel).fXSVD(pm);
    }
 
    public static boolean[][] zSPvarsFromInitialModel(Parameters pm, VariablesAlg initialPlacementVars) {
@@ -0,0 +1,119 @@
+package optimizer.results;
+
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBModel;
+import com.gurobi.gurobi.GRBVar;
+import optimizer.Parameters;
+import optimizer.elements.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static optimizer.Definitions.*;
+
+// Placement of an initial model, read with one call for the names and one for the values
+public class InitialModelValues {
+
+   // indices of the variables at one, per family
+   private final Map<String, List<int[]>> ones = new HashMap<>();
+
+   public InitialModelValues(GRBModel initialModel) {
+      if (initialModel == null)
+         return;
+      try {
+         GRBVar[] vars = initialModel.getVars();
+         String[] names = initialModel.get(GRB.StringAttr.VarName, vars);
+         double[] values = initialModel.get(GRB.DoubleAttr.X, vars);
+         for (int i = 0; i < vars.length; i++) {
+            if (values[i] != 1.0)
+               continue;
+            int bracket = names[i].indexOf('[');
+            if (bracket < 0)
+               continue;
+            String family = names[i].substring(0, bracket);
+            if (!family.equals(zSP) && !family.equals(zSPD) && !family.equals(fXSV) && !family.equals(fXSVD))
+               continue;
+            int[] keys = indices(names[i], bracket);
+            if (keys != null)
+               ones.computeIfAbsent(family, k -> new ArrayList<>()).add(keys);
+         }
+      } catch (GRBException e) {
+         e.printStackTrace();
+      }
+   }
+
+   // indices of a name like family[i][j][k], or null if they are not numbers
+   private static int[] indices(String name, int bracket) {
+      int count = 0;
+      for (int i = bracket; i < name.length(); i++)
+         if (name.charAt(i) == '[')
+            count++;
+      int[] keys = new int[count];
+      int start = bracket;
+      try {
+         for (int k = 0; k < count; k++) {
+            int end = name.indexOf(']', start);
+            keys[k] = Integer.parseInt(name.substring(start + 1, end));
+            start = name.indexOf('[', end);
+         }
+      } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+         return null;
+      }
+      return keys;
+   }
+
+   private List<int[]> get(String family) {
+      return ones.getOrDefault(family, Collections.emptyList());
+   }
+
+   private static boolean isPath(Parameters pm, int s, int p) {
+      return s < pm.getServices().size() && p < pm.getServices().get(s).getTrafficFlow().getPaths().size();
+   }
+
+   private static boolean isFunction(Parameters pm, int x, int s, int v) {
+      return x < pm.getServers().size() && s < pm.getServices().size()
+            && v < pm.getServices().get(s).getFunctions().size();
+   }
+
+   private static boolean isDemand(Service service, int d) {
+      return d < service.getTrafficFlow().getDemands().size();
+   }
+
+   public boolean[][] zSP(Parameters pm) {
+      boolean[][] zSPvar = new boolean[pm.getServices().size()][pm.getPathsTrafficFlow()];
+      for (int[] k : get(zSP))
+         if (k.length == 2 && isPath(pm, k[0], k[1]))
+            zSPvar[k[0]][k[1]] = true;
+      return zSPvar;
+   }
+
+   public boolean[][][] zSPD(Parameters pm) {
+      boolean[][][] zSPDvar = new boolean[pm.getServices().size()][pm.getPathsTrafficFlow()][pm
+            .getDemandsTrafficFlow()];
+      for (int[] k : get(zSPD))
+         if (k.length == 3 && isPath(pm, k[0], k[1]) && isDemand(pm.getServices().get(k[0]), k[2]))
+            zSPDvar[k[0]][k[1]][k[2]] = true;
+      return zSPDvar;
+   }
+
+   public boolean[][][] fXSV(Parameters pm) {
+      boolean[][][] fXSVvar = new boolean[pm.getServers().size()][pm.getServices().size()][pm.getServiceLength()];
+      for (int[] k : get(fXSV))
+         if (k.length == 3 && isFunction(pm, k[0], k[1], k[2]))
+            fXSVvar[k[0]][k[1]][k[2]] = true;
+      return fXSVvar;
+   }
+
+   public boolean[][][][] fXSVD(Parameters pm) {
+      boolean[][][][] fXSVDvar = new boolean[pm.getServers().size()][pm.getServices().size()][pm.getServiceLength()][pm
+            .getDemandsTrafficFlow()];
+      for (int[] k : get(fXSVD))
+         if (k.length == 4 && isFunction(pm, k[0], k[1], k[2]) && isDemand(pm.getServices().get(k[1]), k[3]))
+            fXSVDvar[k[0]][k[1]][k[2]][k[3]] = true;
+      return fXSVDvar;
+   }
+}
@@ -59,6 +59,13 @@ public class Results {
    private double trafficLinks;
    @JsonProperty("synchronization_traffic")
    private double synchronizationTraffic;
+   @JsonProperty("constraint_families")
+   private transient Map<String, ?> constraintFamilies;
+   @JsonProperty("lagrangian_bound")
+   private transient Double lagrangianBound;
+   // with hierarchical objectives, objective_value is the one of the first objective
+   @JsonProperty("objective_values")
+   private transient Map<String, Double> objectiveValues;
 
    @JsonProperty("variables")
    private LinkedHashMap<String, List<String>> variables;
@@ -801,6 +808,30 @@ public class Results {
       this.computationTime = computationTime;
    }
 
+   public Map<String, ?> getConstraintFamilies() {
+      return constraintFamilies;
+   }
+
+   public void setConstraintFamilies(Map<String, ?> constraintFamilies) {
+      this.constraintFamilies = constraintFamilies;
+   }
+
+   public Double getLagrangianBound() {
+      return lagrangianBound;
+   }
+
+   public void setLagrangianBound(Double lagrangianBound) {
+      this.lagrangianBound = lagrangianBound;
+   }
+
+   public Map<String, Double> getObjectiveValues() {
+      return objectiveValues;
+   }
+
+   public void setObjectiveValues(Map<String, Double> objectiveValues) {
+      this.objectiveValues = objectiveValues;
+   }
+
    public Scenario getScenario() {
       return sc;
    }
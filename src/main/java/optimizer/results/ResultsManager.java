@@ -10,6 +10,7 @@ import com.gurobi.gurobi.GRBException;
 import com.gurobi.gurobi.GRBModel;
 import optimizer.Parameters;
 import optimizer.gui.Scenario;
+import optimizer.lp.SolverPool;
 import optimizer.lp.VariablesLP;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -91,13 +92,18 @@ public class ResultsManager {
                printLog(log, WARNING, "no initial solution found");
             return null;
          }
-         GRBEnv grbEnv = new GRBEnv();
-         if (isInitialPlacement)
-            grbEnv.set(GRB.IntParam.LogToConsole, 0);
-         model = new GRBModel(grbEnv);
-         new VariablesLP(pm, model, sce, null);
-         model.read(pathFile + ".mst");
-         model.optimize();
+         GRBEnv grbEnv = SolverPool.acquire(pm);
+         try {
+            model = new GRBModel(grbEnv);
+            if (isInitialPlacement)
+               model.getEnv().set(GRB.IntParam.LogToConsole, 0);
+            SolverPool.setThreads(model, SolverPool.threads(pm));
+            new VariablesLP(pm, model, sce, null);
+            model.read(pathFile + ".mst");
+            model.optimize();
+         } finally {
+            SolverPool.release(grbEnv);
+         }
          if (!isInitialPlacement)
             Auxiliary.printLog(log, INFO, "initial solution loaded");
          return model;
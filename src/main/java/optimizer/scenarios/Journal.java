@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.gurobi.gurobi.GRB;
 import com.gurobi.gurobi.GRBException;
 import com.gurobi.gurobi.GRBModel;
 import optimizer.Manager;
@@ -63,7 +64,10 @@ public class Journal {
                                     + pm.getGraphName() + "_" + GRD + "_" + sce.getObjFunc(),
                             pm, sce, false);
                     outputFileName = pm.getGraphName() + "_" + LP + "_" + sce.getObjFunc();
-                    LauncherLP.run(pm, sce, rm, initModel, initSol, outputFileName, true);
+                    // the initial solution becomes the model of the run
+                    LauncherLP.release(LauncherLP.run(pm, sce, rm, initModel, initSol, outputFileName, true));
+                    if (initModel != null)
+                        initModel.dispose();
                     break;
 
                 case JOURNAL_ALL_SFC_LENGTH:
@@ -81,6 +85,10 @@ public class Journal {
                 case JOURNAL_HEU_SERVER_CAP:
                     runCustomServerCap(sce, JOURNAL_HEU);
                     break;
+
+                case JOURNAL_DELAY_FORMULATION:
+                    runDelayFormulation(sce);
+                    break;
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -112,14 +120,56 @@ public class Journal {
         }
 
         int[] serverCaps = new int[] { 250, 500, 750, 1000, 1250, 1500, 1750, 2000, 2250, 2500, 2750, 3000 };
-        for (int s = 0; s < serverCaps.length; s++) {
-            if (customString.equals(JOURNAL_ALL))
-                runJournalAll(sce, services, serviceLength, serverCaps[s]);
-            if (customString.equals(JOURNAL_HEU))
-                runJournalHeu(sce, services, serviceLength, serverCaps[s]);
+        // the models of every capacity are kept and only their utilization constraints are updated, the three runs
+        // without initial placement and the three with the placement of each of them
+        Object capacitySweep = pm.getGlobal().put(CAPACITY_SWEEP, true);
+        Object retainedModels = pm.getGlobal().put(RETAINED_MODELS, 6);
+        try {
+            for (int s = 0; s < serverCaps.length; s++) {
+                if (customString.equals(JOURNAL_ALL))
+                    runJournalAll(sce, services, serviceLength, serverCaps[s]);
+                if (customString.equals(JOURNAL_HEU))
+                    runJournalHeu(sce, services, serviceLength, serverCaps[s]);
+            }
+        } finally {
+            pm.getGlobal().put(CAPACITY_SWEEP, capacitySweep);
+            pm.getGlobal().put(RETAINED_MODELS, retainedModels);
         }
     }
 
+    // solves every journal instance with the big-M and the indicator delay constraints and compares the runtimes
+    private static void runDelayFormulation(Scenario sce) throws GRBException {
+        ArrayList<Integer> services = new ArrayList<>();
+        services.add(0);
+        ArrayList<Integer> serviceLength = new ArrayList<>();
+        serviceLength.add(0);
+        ResultsManager rm = new ResultsManager(sce.getInputFileName() + "_" + JOURNAL_DELAY_FORMULATION);
+        StringBuilder summary = new StringBuilder();
+        // the formulations only differ in the max. service delay constraints
+        Boolean maxServDelay = sce.getConstraints().get(MAX_SERV_DELAY);
+        Object delayIndicators = pm.getGlobal().get(DELAY_INDICATORS);
+        sce.setConstraint(MAX_SERV_DELAY, true);
+        try {
+            for (String instance : new String[] { OBSV_1, PRED_2, OVER_2 }) {
+                double[] runtimes = new double[2];
+                for (int f = 0; f < runtimes.length; f++) {
+                    boolean indicators = f == 1;
+                    pm.getGlobal().put(DELAY_INDICATORS, indicators);
+                    GRBModel model = runJournalLP(sce, MGR_REP_CLOUD, instance, indicators ? "indicators" : "bigm",
+                            rm, null, false, services, serviceLength, 0);
+                    runtimes[f] = model != null ? model.get(GRB.DoubleAttr.Runtime) : Double.NaN;
+                    LauncherLP.release(model);
+                }
+                summary.append("[").append(instance).append(": big-M ").append(Auxiliary.roundDouble(runtimes[0], 2))
+                        .append(" s, indicators ").append(Auxiliary.roundDouble(runtimes[1], 2)).append(" s]");
+            }
+        } finally {
+            sce.setConstraint(MAX_SERV_DELAY, maxServDelay != null && maxServDelay);
+            pm.getGlobal().put(DELAY_INDICATORS, delayIndicators);
+        }
+        printLog(log, INFO, "delay formulations " + summary);
+    }
+
     private static void runJournalAll(Scenario sce, ArrayList<Integer> services, ArrayList<Integer> service_lengths,
             int serverCap) throws GRBException {
         String resultsFolderExtension = "";
@@ -144,20 +194,36 @@ public class Journal {
         VariablesAlg over2Alg = new VariablesAlg(pm, over2LP);
 
         // 1 - obsv1 -- > obsv2 [LP]
-        runJournalLP(sce, MGR, OBSV_2, OBSV_1, rm, obsv1LP, toMST, services, service_lengths, serverCap);
-        runJournalLP(sce, REP, OBSV_2, OBSV_1, rm, obsv1LP, toMST, services, service_lengths, serverCap);
-        runJournalLP(sce, CLOUD, OBSV_2, OBSV_1, rm, obsv1LP, toMST, services, service_lengths, serverCap);
-        runJournalLP(sce, MGR_REP_CLOUD, OBSV_2, OBSV_1, rm, obsv1LP, toMST, services, service_lengths, serverCap);
+        LauncherLP.release(runJournalLP(sce, MGR, OBSV_2, OBSV_1, rm, obsv1LP, toMST, services, service_lengths,
+                serverCap));
+        LauncherLP.release(runJournalLP(sce, REP, OBSV_2, OBSV_1, rm, obsv1LP, toMST, services, service_lengths,
+                serverCap));
+        LauncherLP.release(runJournalLP(sce, CLOUD, OBSV_2, OBSV_1, rm, obsv1LP, toMST, services, service_lengths,
+                serverCap));
+        LauncherLP.release(runJournalLP(sce, MGR_REP_CLOUD, OBSV_2, OBSV_1, rm, obsv1LP, toMST,
+                services, service_lengths, serverCap));
         // 2 - pred2 -- > obsv2 [LP]
-        runJournalLP(sce, MGR, OBSV_2, PRED_2, rm, pred2LP, toMST, services, service_lengths, serverCap);
-        runJournalLP(sce, REP, OBSV_2, PRED_2, rm, pred2LP, toMST, services, service_lengths, serverCap);
-        runJournalLP(sce, CLOUD, OBSV_2, PRED_2, rm, pred2LP, toMST, services, service_lengths, serverCap);
-        runJournalLP(sce, MGR_REP_CLOUD, OBSV_2, PRED_2, rm, pred2LP, toMST, services, service_lengths, serverCap);
+        LauncherLP.release(runJournalLP(sce, MGR, OBSV_2, PRED_2, rm, pred2LP, toMST, services, service_lengths,
+                serverCap));
+        LauncherLP.release(runJournalLP(sce, REP, OBSV_2, PRED_2, rm, pred2LP, toMST, services, service_lengths,
+                serverCap));
+        LauncherLP.release(runJournalLP(sce, CLOUD, OBSV_2, PRED_2, rm, pred2LP, toMST, services, service_lengths,
+                serverCap));
+        LauncherLP.release(runJournalLP(sce, MGR_REP_CLOUD, OBSV_2, PRED_2, rm, pred2LP, toMST,
+                services, service_lengths, serverCap));
         // 3 - over2 -- > obsv2 [LP]
-        runJournalLP(sce, MGR, OBSV_2, OVER_2, rm, over2LP, toMST, services, service_lengths, serverCap);
-        runJournalLP(sce, REP, OBSV_2, OVER_2, rm, over2LP, toMST, services, service_lengths, serverCap);
-        runJournalLP(sce, CLOUD, OBSV_2, OVER_2, rm, over2LP, toMST, services, service_lengths, serverCap);
-        runJournalLP(sce, MGR_REP_CLOUD, OBSV_2, OVER_2, rm, over2LP, toMST, services, service_lengths, serverCap);
+        LauncherLP.release(runJournalLP(sce, MGR, OBSV_2, OVER_2, rm, over2LP, toMST, services, service_lengths,
+                serverCap));
+        LauncherLP.release(runJournalLP(sce, REP, OBSV_2, OVER_2, rm, over2LP, toMST, services, service_lengths,
+                serverCap));
+        LauncherLP.release(runJournalLP(sce, CLOUD, OBSV_2, OVER_2, rm, over2LP, toMST, services, service_lengths,
+                serverCap));
+        LauncherLP.release(runJournalLP(sce, MGR_REP_CLOUD, OBSV_2, OVER_2, rm, over2LP, toMST,
+                services, service_lengths, serverCap));
+        // the placements of the initial models are kept in the heuristic variables
+        LauncherLP.release(obsv1LP);
+        LauncherLP.release(pred2LP);
+        LauncherLP.release(over2LP);
 
         // 1 - obsv1 -- > obsv2 [FF]
         runJournalHeu(sce, FF, MGR_REP_CLOUD, OBSV_2, OBSV_1, rm, obsv1Alg, toMST, services, service_lengths, serverCap);
@@ -254,7 +320,13 @@ public class Journal {
         sce.setObjFunc(objFunc);
         sce.setConstraint(PATHS_SERVERS_CLOUD, true);
         String outputFileName = pm.getGraphName() + "_" + LP + "_" + sce.getObjFunc() + "_" + outputFileExtension;
-        return LauncherLP.run(pm, sce, resultsManager, initPlacementModel, null, outputFileName, exportMST);
+        // runs on the same instance only differing in the objective share one model
+        Object retainModel = pm.getGlobal().put(RETAIN_MODEL, true);
+        try {
+            return LauncherLP.run(pm, sce, resultsManager, initPlacementModel, null, outputFileName, exportMST);
+        } finally {
+            pm.getGlobal().put(RETAIN_MODEL, retainModel);
+        }
     }
 
     private static VariablesAlg runJournalHeu(Scenario sce, String alg, String objFunc, String inputFileExtension,
@@ -30,6 +30,7 @@ public class ConfigFiles {
          parameters = mapper.readValue(new File(file), Parameters.class);
          String[] tmp = file.split("/");
          parameters.setGraphName(tmp[tmp.length - 1].split("\\.")[0]);
+         parameters.addInputFile(file);
       } catch (Exception e) {
          e.printStackTrace();
       }
@@ -0,0 +1,99 @@
+package optimizer.utils;
+
+import optimizer.Parameters;
+import optimizer.elements.Service;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.Path;
+
+import java.util.*;
+
+// Servers of every path and path node, computed once from the parameters
+public class IncidenceIndex {
+
+   private final Map<String, Integer> nodeIndices;
+   // [n] -> indices of the servers hosted by node n
+   private final int[][] serversOfNode;
+   // [s][p][n] -> indices of the servers hosted by the n-th node of path p
+   private final int[][][][] serversOnPath;
+   // [s][p] -> indices of the servers hosted by any node of path p, in path order
+   private final int[][][] serversAlongPath;
+   // [s] -> sorted indices of the servers hosted by any admissible path of s
+   private final int[][] admissibleServers;
+
+   public IncidenceIndex(Parameters pm) {
+      nodeIndices = new HashMap<>();
+      for (int n = 0; n < pm.getNodes().size(); n++)
+         nodeIndices.put(pm.getNodes().get(n).getId(), n);
+
+      List<List<Integer>> serversList = new ArrayList<>();
+      for (int n = 0; n < pm.getNodes().size(); n++)
+         serversList.add(new ArrayList<>());
+      for (int x = 0; x < pm.getServers().size(); x++)
+         serversList.get(nodeIndices.get(pm.getServers().get(x).getParent().getId())).add(x);
+      serversOfNode = new int[pm.getNodes().size()][];
+      for (int n = 0; n < pm.getNodes().size(); n++)
+         serversOfNode[n] = toArray(serversList.get(n));
+
+      // paths are shared between traffic flows, so every path is resolved only once
+      Map<Path, int[][]> pathCache = new IdentityHashMap<>();
+      serversOnPath = new int[pm.getServices().size()][][][];
+      serversAlongPath = new int[pm.getServices().size()][][];
+      admissibleServers = new int[pm.getServices().size()][];
+      for (int s = 0; s < pm.getServices().size(); s++) {
+         Service service = pm.getServices().get(s);
+         List<Path> paths = service.getTrafficFlow().getPaths();
+         serversOnPath[s] = new int[paths.size()][][];
+         serversAlongPath[s] = new int[paths.size()][];
+         BitSet admissible = new BitSet(pm.getServers().size());
+         for (int p = 0; p < paths.size(); p++) {
+            serversOnPath[s][p] = pathCache.computeIfAbsent(paths.get(p), this::serversPerPosition);
+            int size = 0;
+            for (int[] servers : serversOnPath[s][p])
+               size += servers.length;
+            serversAlongPath[s][p] = new int[size];
+            int i = 0;
+            for (int[] servers : serversOnPath[s][p])
+               for (int x : servers) {
+                  serversAlongPath[s][p][i++] = x;
+                  admissible.set(x);
+               }
+         }
+         admissibleServers[s] = admissible.stream().toArray();
+      }
+   }
+
+   private int[][] serversPerPosition(Path path) {
+      List<Node> nodePath = path.getNodePath();
+      int[][] servers = new int[nodePath.size()][];
+      for (int n = 0; n < nodePath.size(); n++)
+         servers[n] = serversOfNode[nodeIndices.get(nodePath.get(n).getId())];
+      return servers;
+   }
+
+   private static int[] toArray(List<Integer> list) {
+      int[] array = new int[list.size()];
+      for (int i = 0; i < list.size(); i++)
+         array[i] = list.get(i);
+      return array;
+   }
+
+   public int getNodeIndex(Node node) {
+      return nodeIndices.get(node.getId());
+   }
+
+   public int[] getServersOfNode(int n) {
+      return serversOfNode[n];
+   }
+
+   public int[] getServersOnPath(int s, int p, int n) {
+      return serversOnPath[s][p][n];
+   }
+
+   public int[] getServersAlongPath(int s, int p) {
+      return serversAlongPath[s][p];
+   }
+
+   public int[] getAdmissibleServers(int s) {
+      return admissibleServers[s];
+   }
+}
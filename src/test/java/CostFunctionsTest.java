@@ -0,0 +1,31 @@
+import optimizer.lp.CostFunctions;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class CostFunctionsTest {
+
+   @Test
+   public void breakpoints() {
+
+      CostFunctions costFunctions = CostFunctions.linear();
+      assertNotNull(costFunctions);
+      double[][] breakpoints = costFunctions.breakpoints(0, 1);
+      double[] x = breakpoints[0];
+      double[] y = breakpoints[1];
+      assertEquals(x.length, y.length);
+      assertEquals(0.0, x[0], 0.0);
+      assertEquals(1.0, x[x.length - 1], 0.0);
+      for (int i = 0; i < x.length; i++) {
+         assertEquals(costFunctions.cost(x[i]), y[i], 1e-9);
+         if (i == 0)
+            continue;
+         // the cost is linear between two breakpoints, so the interpolation is exact at the midpoint
+         assertTrue(x[i] > x[i - 1]);
+         double midpoint = (x[i - 1] + x[i]) / 2;
+         assertEquals(costFunctions.cost(midpoint), (y[i - 1] + y[i]) / 2, 1e-9);
+      }
+   }
+}
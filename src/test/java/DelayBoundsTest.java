@@ -0,0 +1,76 @@
+import optimizer.Parameters;
+import optimizer.elements.Function;
+import optimizer.elements.Server;
+import optimizer.elements.Service;
+import optimizer.lp.DelayBounds;
+import optimizer.utils.ConfigFiles;
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.Path;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertTrue;
+import static optimizer.Definitions.*;
+
+public class DelayBoundsTest {
+
+   @Test
+   public void delayBounds() throws URISyntaxException {
+
+      final String graphName = "example";
+      final String extensionGraph = ".dgs";
+      final boolean directedEdges = true;
+      String path = new File(ConfigFiles.class.getProtectionDomain().getCodeSource().getLocation().toURI().getPath())
+            .getParent() + "/";
+
+      Parameters pm = ConfigFiles.readParameters(path + graphName + ".yml");
+      pm.initialize(path + graphName + extensionGraph, path + graphName + ".txt", directedEdges);
+      // every function initially placed on every server, so the migration delay is part of the bound
+      boolean[][][] initialPlacement = new boolean[pm.getServers().size()][pm.getServices().size()][];
+      for (int x = 0; x < pm.getServers().size(); x++)
+         for (int s = 0; s < pm.getServices().size(); s++) {
+            initialPlacement[x][s] = new boolean[pm.getServices().get(s).getFunctions().size()];
+            Arrays.fill(initialPlacement[x][s], true);
+         }
+      for (Service service : pm.getServices())
+         service.getAttributes().put(SERVICE_DOWNTIME, 10.0);
+      for (boolean onePlacementPerDemand : new boolean[] { false, true })
+         for (boolean[][][] placement : new boolean[][][][] { null, initialPlacement }) {
+            DelayBounds delayBounds = new DelayBounds(pm, placement, onePlacementPerDemand);
+            for (int s = 0; s < pm.getServices().size(); s++)
+               for (int p = 0; p < pm.getServices().get(s).getTrafficFlow().getPaths().size(); p++)
+                  assertTrue(delayBounds.get(s, p) >= maxServiceDelay(pm, placement, onePlacementPerDemand, s, p)
+                        - 1e-9);
+         }
+   }
+
+   // max. value of the service delay of a path: the delay of all its links, the max. delay of every function on every
+   // server of the path (on one of them with FD1) and the downtime of every initial placement
+   private double maxServiceDelay(Parameters pm, boolean[][][] initialPlacement, boolean onePlacementPerDemand, int s,
+         int p) {
+      Service service = pm.getServices().get(s);
+      Path path = service.getTrafficFlow().getPaths().get(p);
+      double delay = 0;
+      for (Edge link : path.getEdgePath())
+         delay += (double) link.getAttribute(LINK_DELAY) * 1000;
+      int servers = 0;
+      for (Node node : path.getNodePath())
+         for (Server server : pm.getServers())
+            if (server.getParent().equals(node))
+               servers++;
+      if (onePlacementPerDemand)
+         servers = Math.min(servers, 1);
+      for (Function function : service.getFunctions())
+         delay += servers * (double) function.getAttribute(FUNCTION_MAX_DELAY);
+      if (initialPlacement != null)
+         for (int x = 0; x < pm.getServers().size(); x++)
+            for (int v = 0; v < service.getFunctions().size(); v++)
+               if (initialPlacement[x][s][v])
+                  delay += (double) service.getAttribute(SERVICE_DOWNTIME);
+      return delay;
+   }
+}
@@ -0,0 +1,55 @@
+import optimizer.Parameters;
+import optimizer.elements.Service;
+import optimizer.utils.ConfigFiles;
+import optimizer.utils.IncidenceIndex;
+import org.graphstream.graph.Path;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URISyntaxException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IncidenceIndexTest {
+
+   @Test
+   public void incidenceIndex() throws URISyntaxException {
+
+      final String graphName = "example";
+      final String extensionGraph = ".dgs";
+      final boolean directedEdges = true;
+      String path = new File(ConfigFiles.class.getProtectionDomain().getCodeSource().getLocation().toURI().getPath())
+            .getParent() + "/";
+
+      Parameters pm = ConfigFiles.readParameters(path + graphName + ".yml");
+      pm.initialize(path + graphName + extensionGraph, path + graphName + ".txt", directedEdges);
+      IncidenceIndex index = pm.getIncidenceIndex();
+      assertNotNull(index);
+      for (int s = 0; s < pm.getServices().size(); s++) {
+         Service service = pm.getServices().get(s);
+         for (int p = 0; p < service.getTrafficFlow().getPaths().size(); p++) {
+            Path pa = service.getTrafficFlow().getPaths().get(p);
+            int numServers = 0;
+            for (int n = 0; n < pa.getNodePath().size(); n++)
+               for (int x = 0; x < pm.getServers().size(); x++)
+                  if (pm.getServers().get(x).getParent().equals(pa.getNodePath().get(n))) {
+                     assertEquals(x, index.getServersOnPath(s, p, n)[numServers
+                           - countBefore(index, s, p, n)]);
+                     numServers++;
+                  }
+            assertEquals(numServers, index.getServersAlongPath(s, p).length);
+         }
+         for (int x : index.getAdmissibleServers(s))
+            assertTrue(x >= 0 && x < pm.getServers().size());
+      }
+   }
+
+   private int countBefore(IncidenceIndex index, int s, int p, int n) {
+      int count = 0;
+      for (int m = 0; m < n; m++)
+         count += index.getServersOnPath(s, p, m).length;
+      return count;
+   }
+}
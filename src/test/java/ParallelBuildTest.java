@@ -0,0 +1,81 @@
+import com.gurobi.gurobi.GRB;
+import com.gurobi.gurobi.GRBConstr;
+import com.gurobi.gurobi.GRBEnv;
+import com.gurobi.gurobi.GRBException;
+import com.gurobi.gurobi.GRBModel;
+import optimizer.Manager;
+import optimizer.Parameters;
+import optimizer.gui.Scenario;
+import optimizer.lp.Constraints;
+import optimizer.lp.ModelLP;
+import optimizer.lp.VariablesLP;
+import optimizer.utils.ConfigFiles;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URISyntaxException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static optimizer.Definitions.*;
+
+public class ParallelBuildTest {
+
+   @Test
+   public void parallelBuild() throws URISyntaxException, GRBException {
+
+      final String graphName = "example";
+      final String extensionGraph = ".dgs";
+      final boolean directedEdges = true;
+      String path = new File(ConfigFiles.class.getProtectionDomain().getCodeSource().getLocation().toURI().getPath())
+            .getParent() + "/";
+
+      Parameters pm = ConfigFiles.readParameters(path + graphName + ".yml");
+      pm.initialize(path + graphName + extensionGraph, path + graphName + ".txt", directedEdges);
+      Manager.determineUsedDemands(pm, false);
+      Scenario sce = new Scenario();
+      sce.setObjFunc(NUM_SERVERS);
+      for (String constraint : new String[] { SINGLE_PATH, SET_INIT_PLC, FORCE_SRC, FORCE_DST, CONST_REP, CONST_VLD,
+            PF3, SYNC_TRAFFIC, PATHS_SERVERS_CLOUD, CLOUD_ONLY, EDGE_ONLY })
+         sce.setConstraint(constraint, false);
+      for (String constraint : new String[] { RP1, RP2, PF1, PF2, FD1, FD2, FD3, MAX_SERV_DELAY })
+         sce.setConstraint(constraint, true);
+
+      // skipped without a Gurobi installation and license
+      GRBEnv env = null;
+      try {
+         env = new GRBEnv();
+      } catch (Throwable e) {
+         Assume.assumeNoException(e);
+      }
+      try {
+         GRBModel sequential = build(pm, sce, env, false);
+         GRBModel parallel = build(pm, sce, env, true);
+         assertEquals(sequential.get(GRB.IntAttr.NumConstrs), parallel.get(GRB.IntAttr.NumConstrs));
+         assertEquals(sequential.get(GRB.IntAttr.NumNZs), parallel.get(GRB.IntAttr.NumNZs));
+         // the rows are added in the same order
+         GRBConstr[] sequentialConstrs = sequential.getConstrs();
+         GRBConstr[] parallelConstrs = parallel.getConstrs();
+         assertArrayEquals(sequential.get(GRB.StringAttr.ConstrName, sequentialConstrs),
+               parallel.get(GRB.StringAttr.ConstrName, parallelConstrs));
+         assertArrayEquals(sequential.get(GRB.DoubleAttr.RHS, sequentialConstrs),
+               parallel.get(GRB.DoubleAttr.RHS, parallelConstrs), 0.0);
+         sequential.dispose();
+         parallel.dispose();
+      } finally {
+         env.dispose();
+      }
+   }
+
+   private GRBModel build(Parameters pm, Scenario sce, GRBEnv env, boolean parallelBuild) throws GRBException {
+      pm.getGlobal().put(PARALLEL_BUILD, parallelBuild);
+      pm.getGlobal().put(BUILD_THREADS, 4);
+      ModelLP modelLP = new ModelLP(pm, null, env);
+      modelLP.setVars(new VariablesLP(pm, modelLP.getGrbModel(), sce, null));
+      new Constraints(pm, modelLP, sce, null);
+      modelLP.getSink().resolveNames();
+      modelLP.getGrbModel().update();
+      return modelLP.getGrbModel();
+   }
+}
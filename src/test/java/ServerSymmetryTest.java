@@ -0,0 +1,76 @@
+import optimizer.Parameters;
+import optimizer.lp.ServerSymmetry;
+import optimizer.utils.ConfigFiles;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static optimizer.Definitions.*;
+
+public class ServerSymmetryTest {
+
+   @Test
+   public void canonicalOrder() throws URISyntaxException {
+
+      final String graphName = "example";
+      final String extensionGraph = ".dgs";
+      final boolean directedEdges = true;
+      final int serversPerNode = 3;
+      String path = new File(ConfigFiles.class.getProtectionDomain().getCodeSource().getLocation().toURI().getPath())
+            .getParent() + "/";
+
+      Parameters pm = ConfigFiles.readParameters(path + graphName + ".yml");
+      // several servers per node, all with the same capacity
+      pm.getGlobal().put(NODE_NUM_SERVERS, serversPerNode);
+      pm.initialize(path + graphName + extensionGraph, path + graphName + ".txt", directedEdges);
+      ServerSymmetry symmetry = new ServerSymmetry(pm, null);
+      assertEquals(pm.getNodes().size(), symmetry.getGroups().size());
+      for (int[] group : symmetry.getGroups())
+         assertEquals(serversPerNode, group.length);
+
+      Random random = new Random(0);
+      for (int i = 0; i < 100; i++) {
+         boolean[] used = new boolean[pm.getServers().size()];
+         double[] load = new double[pm.getServers().size()];
+         for (int x = 0; x < used.length; x++) {
+            used[x] = random.nextBoolean();
+            // a few values only, so that ties in the load are also sorted
+            load[x] = used[x] ? random.nextInt(3) * 0.25 : 0;
+         }
+         int[] order = symmetry.canonicalOrder(used, load);
+         for (int[] group : symmetry.getGroups()) {
+            // the servers of the group take the values of the same servers
+            int[] members = new int[group.length];
+            for (int j = 0; j < group.length; j++)
+               members[j] = order[group[j]];
+            Arrays.sort(members);
+            assertArrayEquals(group, members);
+            // used servers first, then decreasing load
+            for (int j = 1; j < group.length; j++) {
+               int previous = order[group[j - 1]], current = order[group[j]];
+               assertFalse(!used[previous] && used[current]);
+               if (used[previous] == used[current])
+                  assertTrue(load[previous] >= load[current]);
+            }
+         }
+      }
+
+      // servers with different initial functions are not interchangeable
+      boolean[][][] initialPlacement = new boolean[pm.getServers().size()][pm.getServices().size()][];
+      for (int x = 0; x < pm.getServers().size(); x++)
+         for (int s = 0; s < pm.getServices().size(); s++)
+            initialPlacement[x][s] = new boolean[pm.getServices().get(s).getFunctions().size()];
+      int[] firstGroup = symmetry.getGroups().get(0);
+      initialPlacement[firstGroup[0]][0][0] = true;
+      for (int[] group : new ServerSymmetry(pm, initialPlacement).getGroups())
+         for (int x : group)
+            assertTrue(x != firstGroup[0]);
+   }
+}